@@ -1,17 +1,55 @@
 package com.example.rxtraining.entity;
 
+import java.util.concurrent.atomic.AtomicReference;
+
 /**
  * @author Arthur Korchagin (artur.korchagin@simbirsoft.com)
  * @since 13.11.18
  */
 public class Entity {
 
+    /** Пул для {@link #of(int)}, создаётся при первом вызове либо задаётся до него */
+    private static final AtomicReference<EntityInterner> sInterner = new AtomicReference<>();
+
     private final int id;
 
     public Entity(int id) {
         this.id = id;
     }
 
+    /**
+     * @param id идентификатор сущности
+     * @return общий экземпляр сущности из пула, см. {@link EntityInterner}
+     */
+    public static Entity of(int id) {
+        EntityInterner interner = sInterner.get();
+        if (interner == null) {
+            sInterner.compareAndSet(null, new EntityInterner(0, 1 << 16, 1 << 14));
+            interner = sInterner.get();
+        }
+        return interner.of(id);
+    }
+
+    /**
+     * Настройка пула {@link #of(int)}. Вызывается до первого вызова {@link #of(int)}, потом пул
+     * уже не меняется, иначе одному идентификатору соответствовали бы разные экземпляры. По
+     * умолчанию горячий диапазон - {@code [0, 65536)}, вне него - до 16384 экземпляров
+     *
+     * @param hotStart первый идентификатор горячего диапазона
+     * @param hotSize  размер горячего диапазона
+     * @param maxCold  максимальное количество экземпляров вне горячего диапазона
+     * @throws IllegalStateException если пул уже создан
+     */
+    public static void configureInterner(int hotStart, int hotSize, int maxCold) {
+        if (!sInterner.compareAndSet(null, new EntityInterner(hotStart, hotSize, maxCold))) {
+            throw new IllegalStateException("Entity interner is already in use");
+        }
+    }
+
+    public int getId() {
+        return id;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -0,0 +1,81 @@
+package com.example.rxtraining.entity;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Пул неизменяемых экземпляров {@link Entity}: для одного идентификатора возвращается один и тот
+ * же экземпляр, поэтому память зависит от количества различных идентификаторов, а не от
+ * количества событий.
+ * <p>
+ * Идентификаторы из "горячего" диапазона хранятся в массиве и никогда не вытесняются, остальные -
+ * в ограниченном LRU-кэше: при его переполнении вытесненный экземпляр просто перестаёт
+ * переиспользоваться.
+ * <p>
+ * Потокобезопасен.
+ */
+public final class EntityInterner {
+
+    private final int mHotStart;
+    private final AtomicReferenceArray<Entity> mHot;
+    private final int mMaxCold;
+    /** Порядок доступа, самая давно использованная запись первая. Защищено монитором */
+    private final LinkedHashMap<Integer, Entity> mCold;
+
+    /**
+     * @param hotStart первый идентификатор горячего диапазона
+     * @param hotSize  размер горячего диапазона
+     * @param maxCold  максимальное количество экземпляров вне горячего диапазона
+     */
+    public EntityInterner(int hotStart, int hotSize, int maxCold) {
+        if (hotSize < 0 || maxCold < 0) {
+            throw new IllegalArgumentException("hotSize=" + hotSize + ", maxCold=" + maxCold);
+        }
+        mHotStart = hotStart;
+        mHot = new AtomicReferenceArray<>(hotSize);
+        mMaxCold = maxCold;
+        mCold = new LinkedHashMap<Integer, Entity>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entity> eldest) {
+                return size() > mMaxCold;
+            }
+        };
+    }
+
+    /**
+     * @param id идентификатор сущности
+     * @return единственный экземпляр сущности с идентификатором {@code id}
+     */
+    public Entity of(int id) {
+        long hotIndex = (long) id - mHotStart;
+        if (hotIndex >= 0 && hotIndex < mHot.length()) {
+            int index = (int) hotIndex;
+            Entity entity = mHot.get(index);
+            if (entity == null) {
+                Entity created = new Entity(id);
+                entity = mHot.compareAndSet(index, null, created) ? created : mHot.get(index);
+            }
+            return entity;
+        }
+        if (mMaxCold == 0) {
+            return new Entity(id);
+        }
+        synchronized (mCold) {
+            Entity entity = mCold.get(id);
+            if (entity == null) {
+                entity = new Entity(id);
+                mCold.put(id, entity);
+            }
+            return entity;
+        }
+    }
+
+    /**
+     * @param entity произвольный экземпляр сущности
+     * @return единственный экземпляр сущности с тем же идентификатором
+     */
+    public Entity intern(Entity entity) {
+        return of(entity.getId());
+    }
+}
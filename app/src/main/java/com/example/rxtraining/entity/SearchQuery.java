@@ -0,0 +1,47 @@
+package com.example.rxtraining.entity;
+
+/**
+ * Поисковый запрос: строка поиска и выбранная категория
+ */
+public final class SearchQuery {
+
+    private final String searchString;
+    private final int categoryId;
+
+    public SearchQuery(String searchString, int categoryId) {
+        this.searchString = searchString;
+        this.categoryId = categoryId;
+    }
+
+    public String getSearchString() {
+        return searchString;
+    }
+
+    public int getCategoryId() {
+        return categoryId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        SearchQuery query = (SearchQuery) o;
+
+        return categoryId == query.categoryId && searchString.equals(query.searchString);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * searchString.hashCode() + categoryId;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchQuery{" + searchString + ", " + categoryId + "}";
+    }
+}
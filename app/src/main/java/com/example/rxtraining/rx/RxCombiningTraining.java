@@ -1,19 +1,34 @@
 package com.example.rxtraining.rx;
 
 
+import com.example.rxtraining.entity.SearchQuery;
 import com.example.rxtraining.exceptions.NotImplementedException;
+import com.example.rxtraining.rx.operators.FlowableFairMerge;
+import com.example.rxtraining.rx.operators.LatencyMetrics;
+import com.example.rxtraining.rx.operators.PrefixSearchCache;
+import com.example.rxtraining.rx.operators.ZipSkewMetrics;
+import com.example.rxtraining.rx.primitive.IntObservable;
+import com.example.rxtraining.rx.primitive.ObservableBlockSum;
+import com.example.rxtraining.util.IntArrayList;
+import com.example.rxtraining.util.SearchIndex;
 
 import org.reactivestreams.Subscription;
 
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
+import io.reactivex.Flowable;
 import io.reactivex.Observable;
 import io.reactivex.Observer;
 import io.reactivex.Scheduler;
 import io.reactivex.disposables.Disposable;
 import io.reactivex.functions.BiFunction;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.schedulers.Timed;
 
 /**
  * @author Arthur Korchagin (artur.korchagin@simbirsoft.com)
@@ -21,6 +36,8 @@ import io.reactivex.functions.BiFunction;
  */
 public class RxCombiningTraining {
 
+    private final SearchIndex mSearchIndex = new SearchIndex();
+
     /* Тренировочные методы */
 
     /**
@@ -42,6 +59,68 @@ public class RxCombiningTraining {
         });
     }
 
+    /**
+     * Суммирование элементов двух последовательностей, без упаковки значений
+     *
+     * @see #summation(Observable, Observable)
+     */
+    public IntObservable summation(IntObservable integerObservable1, IntObservable integerObservable2) {
+        return integerObservable1.zipWith(integerObservable2, Integer::sum);
+    }
+
+    /**
+     * Суммирование элементов двух последовательностей блоками по {@code blockSize} элементов
+     *
+     * @param integerObservable1 {@link Observable} с произвольным количеством рандомных чисел
+     * @param integerObservable2 {@link Observable} с произвольным количеством рандомных чисел
+     * @param blockSize          Размер блока
+     * @return {@link Observable} который эммитит блоки сумм: элементы блоков по порядку равны
+     * суммам i-го элемента {@code integerObservable1} и i-го элемента {@code integerObservable2}.
+     * Завершение и ошибки - как у {@link #summation(Observable, Observable)}
+     * @see ObservableBlockSum
+     */
+    public Observable<int[]> summationBlocks(Observable<Integer> integerObservable1,
+                                             Observable<Integer> integerObservable2, int blockSize) {
+        return new ObservableBlockSum(integerObservable1, integerObservable2, blockSize);
+    }
+
+    /**
+     * Суммирование элементов двух последовательностей блоками по {@code blockSize} элементов, с
+     * разворачиванием блоков обратно в последовательность чисел
+     *
+     * @see #summationBlocks(Observable, Observable, int)
+     * @see #summation(Observable, Observable)
+     */
+    public Observable<Integer> summation(Observable<Integer> integerObservable1,
+                                         Observable<Integer> integerObservable2, int blockSize) {
+        return summationBlocks(integerObservable1, integerObservable2, blockSize)
+                .concatMapIterable(IntArrayList::wrap);
+    }
+
+    /**
+     * Суммирование элементов двух последовательностей с обратным давлением: у каждого источника
+     * запрашивается не больше {@code prefetch} элементов вперёд, поэтому быстрый источник
+     * притормаживается через {@code request(n)}, а не буферизуется без ограничений
+     *
+     * @param integerFlowable1 {@link Flowable} с произвольным количеством рандомных чисел
+     * @param integerFlowable2 {@link Flowable} с произвольным количеством рандомных чисел
+     * @param prefetch1        Сколько элементов запрашивать вперёд у {@code integerFlowable1}
+     * @param prefetch2        Сколько элементов запрашивать вперёд у {@code integerFlowable2}
+     * @param skew             Расхождение между источниками
+     * @return {@link Flowable} который эммитит числа, где i-й элемент равен сумме i-го элемента
+     * {@code integerFlowable1} и i-го элемента {@code integerFlowable2}. Завершение и ошибки -
+     * как у {@link #summation(Observable, Observable)}
+     */
+    public Flowable<Integer> summation(Flowable<Integer> integerFlowable1, Flowable<Integer> integerFlowable2,
+                                       int prefetch1, int prefetch2, ZipSkewMetrics skew) {
+        return Flowable.zip(
+                integerFlowable1.doOnNext(value -> skew.onFirst()).rebatchRequests(prefetch1),
+                integerFlowable2.doOnNext(value -> skew.onSecond()).rebatchRequests(prefetch2),
+                Integer::sum,
+                false,
+                1);
+    }
+
     /**
      * Поиск элементов по выбранной строке и категории
      *
@@ -49,12 +128,77 @@ public class RxCombiningTraining {
      *                           введёнными строками в поисковую строку)
      * @param categoryObservable Последовательность категорий, которые необходимо отобразить
      * @return {@link Observable}  который эммитит списки элементов, с учётом поисковой строки из
-     * {@code searchObservable} и выбранной категории из {@code categoryObservable}
+     * {@code searchObservable} и выбранной категории из {@code categoryObservable}. Поиск
+     * выполняется на {@link Schedulers#computation()}, и незавершённый поиск отменяется, как
+     * только приходит новая пара строки и категории
      * @see #searchItems(String searchString, int categoryId)
      */
     public Observable<List<String>> requestItems(Observable<String> searchObservable,
                                                  Observable<Integer> categoryObservable) {
-        return Observable.combineLatest(searchObservable, categoryObservable, (searchString, categoryId) -> searchItems(searchString, categoryId));
+        return Observable.combineLatest(searchObservable, categoryObservable, SearchQuery::new)
+                .switchMap(this::search);
+    }
+
+    /**
+     * Поиск элементов по выбранной строке и категории с кэшированием результатов. Пока
+     * пользователь набирает строку, результат для "abc" получается фильтрацией закэшированного
+     * результата для "ab", без полного поиска
+     *
+     * @param searchObservable   Последовательность поисковых строк
+     * @param categoryObservable Последовательность категорий, которые необходимо отобразить
+     * @param cache              Кэш результатов, созданный {@link #createSearchCache(int)}
+     * @return {@link Observable}  который эммитит списки элементов, с учётом поисковой строки из
+     * {@code searchObservable} и выбранной категории из {@code categoryObservable}
+     * @see #requestItems(Observable, Observable)
+     */
+    public Observable<List<String>> requestItems(Observable<String> searchObservable,
+                                                 Observable<Integer> categoryObservable,
+                                                 PrefixSearchCache cache) {
+        return Observable.combineLatest(searchObservable, categoryObservable, SearchQuery::new)
+                .switchMap(query -> searchAsync(() -> cache.search(query.getSearchString(), query.getCategoryId())));
+    }
+
+    /**
+     * Поиск элементов по выбранной строке и категории со сглаживанием ввода: поиск запускается,
+     * только когда ввод не менялся {@code debounceMills}, не повторяется для той же пары строки и
+     * категории и запускается не чаще одного раза в {@code minIntervalMills}. Последняя пара
+     * строки и категории всегда будет найдена
+     *
+     * @param searchObservable   Последовательность поисковых строк
+     * @param categoryObservable Последовательность категорий, которые необходимо отобразить
+     * @param debounceMills      Сколько миллисекунд ввод должен не меняться, чтобы начался поиск
+     * @param minIntervalMills   Минимальный интервал в миллисекундах между запусками поиска
+     * @param latency            Задержки от ввода до появления результата поиска
+     * @return {@link Observable}  который эммитит списки элементов, с учётом поисковой строки из
+     * {@code searchObservable} и выбранной категории из {@code categoryObservable}
+     * @see #requestItems(Observable, Observable)
+     */
+    public Observable<List<String>> requestItems(Observable<String> searchObservable,
+                                                 Observable<Integer> categoryObservable,
+                                                 long debounceMills, long minIntervalMills,
+                                                 LatencyMetrics latency) {
+        Scheduler scheduler = searchScheduler();
+        return Observable.combineLatest(searchObservable, categoryObservable, SearchQuery::new)
+                .timestamp(TimeUnit.MILLISECONDS, scheduler)
+                .debounce(debounceMills, TimeUnit.MILLISECONDS, scheduler)
+                .distinctUntilChanged(Timed::value)
+                .throttleLatest(minIntervalMills, TimeUnit.MILLISECONDS, scheduler, true)
+                .switchMap(input -> search(input.value())
+                        .doOnNext(items -> latency.record(
+                                scheduler.now(TimeUnit.MILLISECONDS) - input.time(), TimeUnit.MILLISECONDS)));
+    }
+
+    /**
+     * Создание кэша результатов поиска
+     *
+     * @param maxTotalResults Максимальное суммарное количество элементов во всех закэшированных
+     *                        результатах
+     * @return {@link PrefixSearchCache} поверх {@link #searchItems(String, int)}, сбрасывается при
+     * {@link #addItem(String, int)} и {@link #removeItem(int)}
+     */
+    public PrefixSearchCache createSearchCache(int maxTotalResults) {
+        return new PrefixSearchCache(this::searchItems, RxCombiningTraining::matches, maxTotalResults,
+                mSearchIndex::version);
     }
 
     /**
@@ -71,6 +215,26 @@ public class RxCombiningTraining {
         return Observable.merge(intObservable1, intObservable2);
     }
 
+    /**
+     * Композиция потоков с ограниченной буферизацией и честной очерёдностью: у каждого источника
+     * запрашивается не больше {@code prefetch} элементов вперёд, а элементы выдаются по очереди
+     * от каждого источника, поэтому частый источник не задерживает редкий
+     *
+     * @param intFlowable1 {@link Flowable} с произвольным количеством рандомных чисел
+     * @param intFlowable2 {@link Flowable} с произвольным количеством рандомных чисел
+     * @param prefetch     Сколько элементов запрашивать вперёд у каждого источника
+     * @param latency1     Задержки элементов {@code intFlowable1} от получения до выдачи
+     * @param latency2     Задержки элементов {@code intFlowable2} от получения до выдачи
+     * @return {@link Flowable} который эммитит элементы из {@code intFlowable1} и
+     * {@code intFlowable2}
+     * @see FlowableFairMerge
+     */
+    public Flowable<Integer> composition(Flowable<Integer> intFlowable1, Flowable<Integer> intFlowable2,
+                                         int prefetch, LatencyMetrics latency1, LatencyMetrics latency2) {
+        return new FlowableFairMerge<>(Arrays.asList(intFlowable1, intFlowable2), prefetch,
+                Arrays.asList(latency1, latency2));
+    }
+
     /**
      * Дополнительный элемент перед всеми элементами потока
      *
@@ -86,16 +250,75 @@ public class RxCombiningTraining {
 
     /* Вспомогательные методы */
 
+    /**
+     * Асинхронный поиск
+     *
+     * @param query Строка поиска и категория
+     * @return {@link Observable} который эммитит результат {@link #searchItems(String, int)},
+     * вычисленный на {@link #searchScheduler()}
+     */
+    private Observable<List<String>> search(SearchQuery query) {
+        return searchAsync(() -> searchItems(query.getSearchString(), query.getCategoryId()));
+    }
+
+    /**
+     * @param search Поиск
+     * @return {@link Observable} который эммитит результат {@code search}, вычисленный на
+     * {@link #searchScheduler()}
+     */
+    private static Observable<List<String>> searchAsync(Callable<List<String>> search) {
+        return Observable.fromCallable(search).subscribeOn(searchScheduler());
+    }
+
+    /**
+     * Планировщик поиска и отсчёта времени в {@code requestItems}. Запрашивается при каждой
+     * сборке цепочки, а не запоминается, чтобы учитывались обработчики {@link io.reactivex.plugins.RxJavaPlugins}
+     */
+    private static Scheduler searchScheduler() {
+        return Schedulers.computation();
+    }
+
+    /**
+     * Добавление элемента, по которому работает {@link #searchItems(String, int)}
+     *
+     * @param item       Элемент
+     * @param categoryId Категория элемента
+     * @return идентификатор для {@link #removeItem(int)}, после удаления может быть выдан снова
+     */
+    public int addItem(String item, int categoryId) {
+        return mSearchIndex.add(item, categoryId);
+    }
+
+    /**
+     * Удаление элемента, добавленного {@link #addItem(String, int)}
+     *
+     * @param itemId Идентификатор элемента
+     * @return {@code true}, если элемент был удалён
+     */
+    public boolean removeItem(int itemId) {
+        return mSearchIndex.remove(itemId);
+    }
+
+    /**
+     * Критерий поиска {@link #searchItems(String, int)}: элемент содержит строку поиска без учёта
+     * регистра
+     */
+    private static boolean matches(String searchString, String item) {
+        return item.toLowerCase(Locale.ROOT).contains(searchString.toLowerCase(Locale.ROOT));
+    }
+
     /**
      * Поиск по строкам и вывод
      *
      * @param searchString Строка поиска
      * @param categoryId   Категория
-     * @return вывод некоторых элементов с учётом поисковой строки и выбранной категории
+     * @return вывод элементов категории {@code categoryId}, содержащих строку поиска без учёта
+     * регистра, в порядке идентификаторов
+     * @see #addItem(String, int)
      */
     public List<String> searchItems(String searchString, int categoryId) {
         // Поиск и выборка
-        return Collections.emptyList();
+        return mSearchIndex.search(searchString, categoryId);
     }
 
 }
@@ -2,6 +2,7 @@ package com.example.rxtraining.rx;
 
 import com.example.rxtraining.exceptions.ExpectedException;
 import com.example.rxtraining.exceptions.NotImplementedException;
+import com.example.rxtraining.rx.operators.MemoizedValue;
 
 import java.util.concurrent.TimeUnit;
 
@@ -9,6 +10,7 @@ import io.reactivex.Observable;
 import io.reactivex.ObservableEmitter;
 import io.reactivex.ObservableOnSubscribe;
 import io.reactivex.internal.operators.observable.ObservableAll;
+import io.reactivex.schedulers.Schedulers;
 
 /**
  * @author Arthur Korchagin (artur.korchagin@simbirsoft.com)
@@ -50,6 +52,33 @@ public class RxCreatingTraining {
         return Observable.defer(() -> Observable.just(expensiveMethod()));
     }
 
+    /**
+     * Выполнение метода с длительными вычислениями {@link #expensiveMethod()} с запоминанием
+     * результата: метод вызывается при подписке, только если запомненный результат устарел, и не
+     * больше одного раза одновременно для всех подписчиков
+     *
+     * @param memoizedValue - запомненный результат, созданный
+     *                      {@link #createExpensiveMethodMemo(long, long)}
+     * @return {@link Observable} - который эммитит результат выполнения метода
+     * {@link #expensiveMethod()}
+     */
+    public Observable<Integer> expensiveMethodResult(MemoizedValue<Integer> memoizedValue) {
+        return memoizedValue.get().toObservable();
+    }
+
+    /**
+     * Создание запомненного результата {@link #expensiveMethod()}
+     *
+     * @param ttlMills   - сколько миллисекунд результат отдаётся без повторного вычисления
+     * @param staleMills - сколько миллисекунд после {@code ttlMills} отдаётся старый результат,
+     *                   пока в фоне вычисляется новый, {@code 0} - не отдавать
+     * @return {@link MemoizedValue} поверх {@link #expensiveMethod()}
+     */
+    public MemoizedValue<Integer> createExpensiveMethodMemo(long ttlMills, long staleMills) {
+        return new MemoizedValue<>(this::expensiveMethod, ttlMills, staleMills, TimeUnit.MILLISECONDS,
+                Schedulers.computation());
+    }
+
     /**
      * Возрастающая последовательность, начинающаяся с нуля с первоначальной задержкой и заданным
      * интервалом
@@ -101,6 +130,24 @@ public class RxCreatingTraining {
                 );
     }
 
+    /**
+     * Параллельный вызов нескольких методов с длительными вычислениями. Методы вызываются только
+     * при подписке, одновременно на {@link Schedulers#computation()}, поэтому общее время равно
+     * времени самого долгого из них, а не сумме
+     *
+     * @param unstableCondition - условие, которое необходимо передавать в {@code unstableMethod}
+     * @return {@link Observable} который эммитит сумму результатов {@link #expensiveMethod()},
+     * {@link #alternativeExpensiveMethod()} и {@link #unstableMethod(boolean)}. При ошибке любого
+     * из методов остальные вычисления отменяются, а в {@code onError} приходит эта ошибка
+     */
+    public Observable<Integer> combinationExpensiveMethodsParallel(final boolean unstableCondition) {
+        return Observable.zip(
+                Observable.fromCallable(() -> unstableMethod(unstableCondition)).subscribeOn(Schedulers.computation()),
+                Observable.fromCallable(this::expensiveMethod).subscribeOn(Schedulers.computation()),
+                Observable.fromCallable(this::alternativeExpensiveMethod).subscribeOn(Schedulers.computation()),
+                (unstable, expensive, alternative) -> expensive + alternative + unstable);
+    }
+
     /**
      * Без каких либо событий
      *
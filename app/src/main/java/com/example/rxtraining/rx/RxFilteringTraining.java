@@ -1,8 +1,14 @@
 package com.example.rxtraining.rx;
 
 import com.example.rxtraining.exceptions.NotImplementedException;
+import com.example.rxtraining.rx.primitive.IntObservable;
+import com.example.rxtraining.util.IntBloomFilter;
+import com.example.rxtraining.util.IntHashSet;
+import com.example.rxtraining.util.IntLruSet;
+import com.example.rxtraining.util.IntRingBuffer;
 
 import java.util.Objects;
+import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -29,6 +35,15 @@ public class RxFilteringTraining {
         return intValues.filter(integer -> integer > 0);
     }
 
+    /**
+     * Только положительные числа, без упаковки значений
+     *
+     * @see #onlyPositiveNumbers(Observable)
+     */
+    public IntObservable onlyPositiveNumbers(IntObservable intValues) {
+        return intValues.filter(value -> value > 0);
+    }
+
     /**
      * Эммит только последних значений
      *
@@ -37,7 +52,19 @@ public class RxFilteringTraining {
      * @return {@link Observable} который эммитит последние значения
      */
     public Observable<Integer> onlyLastValues(int count, Observable<Integer> intValues) {
-        return Observable.defer(() -> intValues.skip(Math.max(0, intValues.count().blockingGet() - count)));
+        // Одна подписка на источник и O(count) памяти независимо от длины последовательности
+        return intValues
+                .collect(() -> new IntRingBuffer(Math.max(0, count)), IntRingBuffer::add)
+                .flatMapObservable(buffer -> Observable.range(0, buffer.size()).map(buffer::get));
+    }
+
+    /**
+     * Эммит только последних значений, без упаковки значений
+     *
+     * @see #onlyLastValues(int, Observable)
+     */
+    public IntObservable onlyLastValues(int count, IntObservable intValues) {
+        return intValues.takeLast(Math.max(0, count));
     }
 
     /**
@@ -51,6 +78,15 @@ public class RxFilteringTraining {
         return Observable.defer(() -> intValues.take(count));
     }
 
+    /**
+     * Эммит только первых значений, без упаковки значений
+     *
+     * @see #onlyFirstValues(int, Observable)
+     */
+    public IntObservable onlyFirstValues(int count, IntObservable intValues) {
+        return intValues.take(Math.max(0, count));
+    }
+
     /**
      * Отфильтровать первые значения
      *
@@ -63,6 +99,15 @@ public class RxFilteringTraining {
         return intValues.skip(count);
     }
 
+    /**
+     * Отфильтровать первые значения, без упаковки значений
+     *
+     * @see #ignoreFirstValues(int, Observable)
+     */
+    public IntObservable ignoreFirstValues(int count, IntObservable intValues) {
+        return intValues.skip(count);
+    }
+
     /**
      * Только последний элемент из всех элементов во временном периоде
      *
@@ -99,9 +144,60 @@ public class RxFilteringTraining {
      * значений
      */
     public Observable<Integer> ignoreDuplicates(Observable<Integer> intValues) {
+        return Observable.defer(() -> {
+            IntHashSet seen = new IntHashSet();
+            return intValues.filter(seen::add);
+        });
+    }
+
+    /**
+     * Значения без повторений, без упаковки значений
+     *
+     * @see #ignoreDuplicates(Observable)
+     */
+    public IntObservable ignoreDuplicates(IntObservable intValues) {
         return intValues.distinct();
     }
 
+    /**
+     * Значения без повторений с ограниченным расходом памяти
+     *
+     * @param maxTracked Максимальное количество запоминаемых значений. При переполнении
+     *                   забывается значение, которое дольше всего не встречалось, и его
+     *                   следующее появление снова будет эммичено
+     * @param intValues  {@link Observable} с произвольным количеством рандомных чисел
+     * @return {@link Observable} который эммитит значения {@code intValues} без повторений среди
+     * последних {@code maxTracked} различных значений
+     */
+    public Observable<Integer> ignoreDuplicates(int maxTracked, Observable<Integer> intValues) {
+        return Observable.defer(() -> {
+            IntLruSet seen = new IntLruSet(maxTracked);
+            return intValues.filter(seen::add);
+        });
+    }
+
+    /**
+     * Значения без повторений с приблизительной проверкой для очень большого количества
+     * различных значений
+     *
+     * @param filterFactory Создание пустого фильтра Блума, в котором запоминаются встреченные
+     *                      значения. Вызывается при каждой подписке, поэтому подписки не делят
+     *                      фильтр и каждая начинает с пустого, как в
+     *                      {@link #ignoreDuplicates(int, Observable)}. Через созданный фильтр
+     *                      можно следить за {@link IntBloomFilter#fillRatio()} и
+     *                      {@link IntBloomFilter#expectedFalsePositiveRate()}
+     * @param intValues     {@link Observable} с произвольным количеством рандомных чисел
+     * @return {@link Observable} который эммитит значения {@code intValues} без повторений, при
+     * этом с вероятностью ложного срабатывания фильтра новое значение может быть пропущено
+     */
+    public Observable<Integer> ignoreDuplicates(Callable<IntBloomFilter> filterFactory,
+                                                Observable<Integer> intValues) {
+        return Observable.defer(() -> {
+            IntBloomFilter filter = filterFactory.call();
+            return intValues.filter(filter::add);
+        });
+    }
+
     /**
      * Игноритуются повторяющиеся элементы, которые идут подряд
      *
@@ -113,4 +209,13 @@ public class RxFilteringTraining {
         return intValues.distinctUntilChanged();
     }
 
+    /**
+     * Игноритуются повторяющиеся элементы, которые идут подряд, без упаковки значений
+     *
+     * @see #onlyChangedValues(Observable)
+     */
+    public IntObservable onlyChangedValues(IntObservable intValues) {
+        return intValues.distinctUntilChanged();
+    }
+
 }
@@ -1,6 +1,7 @@
 package com.example.rxtraining.rx;
 
 import com.example.rxtraining.exceptions.NotImplementedException;
+import com.example.rxtraining.rx.primitive.IntObservable;
 
 import io.reactivex.Maybe;
 import io.reactivex.Observable;
@@ -55,6 +56,17 @@ public class RxMaybeTraining {
                 .defaultIfEmpty(0);
     }
 
+    /**
+     * Сумма всех элементов последовательности, без упаковки промежуточных сумм
+     *
+     * @param integerObservable {@link IntObservable} произвольная последовательность чисел
+     * @return {@link Maybe} который эммитит сумму всех элементов, либо не эммитит ничего если
+     * последовательность пустая
+     */
+    public Maybe<Integer> calculateSumOfValues(IntObservable integerObservable) {
+        return integerObservable.reduce(Integer::sum);
+    }
+
     /**
      * Если {@code integerMaybe} не эммитит элемент, то возвращать {@code defaultValue}
      *
@@ -2,15 +2,19 @@ package com.example.rxtraining.rx;
 
 import com.example.rxtraining.exceptions.ExpectedException;
 import com.example.rxtraining.exceptions.NotImplementedException;
+import com.example.rxtraining.rx.primitive.IntObservable;
+import com.example.rxtraining.util.IntArrayList;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.NoSuchElementException;
 
+import io.reactivex.BackpressureStrategy;
 import io.reactivex.Observable;
 import io.reactivex.Observer;
 import io.reactivex.Single;
 import io.reactivex.disposables.Disposable;
+import io.reactivex.schedulers.Schedulers;
 
 /**
  * @author Arthur Korchagin (artur.korchagin@simbirsoft.com)
@@ -60,6 +64,34 @@ public class RxSingleTraining {
         return integerObservable.reduce(0, Integer::sum).onErrorReturnItem(0);
     }
 
+    /**
+     * Параллельная сумма всех элементов последовательности
+     *
+     * @param integerObservable {@link Observable} произвольная последовательность чисел
+     * @param parallelism       количество параллельных потоков (rails), каждый из которых
+     *                          накапливает свою частичную сумму в {@code long}
+     * @return {@link Single} который эммитит сумму всех элементов, либо 0 если последовательность
+     * пустая. При переполнении {@code long} эммитит {@link ArithmeticException}
+     */
+    public Single<Long> calculateSumOfValues(Observable<Integer> integerObservable, int parallelism) {
+        return integerObservable
+                .toFlowable(BackpressureStrategy.BUFFER)
+                .parallel(parallelism)
+                .runOn(Schedulers.computation())
+                .reduce(RailSum::new, RailSum::add)
+                .sequential()
+                .reduce(0L, (sum, railSum) -> Math.addExact(sum, railSum.mValue));
+    }
+
+    /**
+     * Сумма всех элементов последовательности, без упаковки промежуточных сумм
+     *
+     * @see #calculateSumOfValues(Observable)
+     */
+    public Single<Integer> calculateSumOfValues(IntObservable integerObservable) {
+        return integerObservable.reduce(0, Integer::sum).onErrorReturnItem(0);
+    }
+
     /**
      * Преобразование последовательности в список
      *
@@ -71,6 +103,41 @@ public class RxSingleTraining {
         return integerObservable.toList();
     }
 
+    /**
+     * Преобразование последовательности в список заранее известного размера
+     *
+     * @param integerObservable {@link Observable} произвольная последовательность чисел
+     * @param capacityHint      ожидаемое количество элементов, список сразу создаётся такого
+     *                          размера и не копируется при росте
+     * @return {@link Single} который эммитит {@link List} со всеми элементами последовательности
+     * {@code integerObservable}
+     */
+    public Single<List<Integer>> collectionOfValues(Observable<Integer> integerObservable, int capacityHint) {
+        return integerObservable.toList(capacityHint);
+    }
+
+    /**
+     * Преобразование последовательности в компактный список
+     *
+     * @param integerObservable {@link Observable} произвольная последовательность чисел
+     * @param capacityHint      ожидаемое количество элементов
+     * @return {@link Single} который эммитит {@link IntArrayList} со всеми элементами
+     * последовательности {@code integerObservable}. Значения хранятся в массиве {@code int}
+     * (около 4 байт на элемент) и упаковываются только при чтении
+     */
+    public Single<List<Integer>> compactCollectionOfValues(Observable<Integer> integerObservable, int capacityHint) {
+        return integerObservable.<List<Integer>>collect(() -> new IntArrayList(capacityHint), List::add);
+    }
+
+    /**
+     * Преобразование последовательности в компактный список, без упаковки значений
+     *
+     * @see #compactCollectionOfValues(Observable, int)
+     */
+    public Single<List<Integer>> collectionOfValues(IntObservable integerObservable) {
+        return integerObservable.toList();
+    }
+
     /**
      * Проверка всех элементов на положительность
      *
@@ -82,4 +149,47 @@ public class RxSingleTraining {
         return integerSingle.all(i -> i > 0);
     }
 
+    /**
+     * Параллельная проверка всех элементов на положительность
+     *
+     * @param integerSingle {@link Observable} произвольная последовательность чисел
+     * @param parallelism   количество параллельных потоков (rails) проверки
+     * @return {@link Single} который эммитит {@code true} если все элементы последовательности
+     * {@code integerSingle} положительны, {@code false} если есть отрицательные элементы. Как
+     * только любой rail находит неположительный элемент, все rails и источник отменяются
+     */
+    public Single<Boolean> allElementsIsPositive(Observable<Integer> integerSingle, int parallelism) {
+        return integerSingle
+                .toFlowable(BackpressureStrategy.BUFFER)
+                .parallel(parallelism)
+                .runOn(Schedulers.computation())
+                .filter(i -> i <= 0)
+                .sequential()
+                .isEmpty();
+    }
+
+    /**
+     * Проверка всех элементов на положительность, без упаковки значений
+     *
+     * @see #allElementsIsPositive(Observable)
+     */
+    public Single<Boolean> allElementsIsPositive(IntObservable integerSingle) {
+        return integerSingle.all(i -> i > 0);
+    }
+
+    /* Вспомогательные классы */
+
+    /**
+     * Изменяемая частичная сумма одного rail, чтобы не упаковывать её на каждом элементе
+     */
+    private static final class RailSum {
+
+        private long mValue;
+
+        RailSum add(int value) {
+            mValue = Math.addExact(mValue, value);
+            return this;
+        }
+    }
+
 }
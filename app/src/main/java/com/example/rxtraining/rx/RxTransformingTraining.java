@@ -2,11 +2,25 @@ package com.example.rxtraining.rx;
 
 import com.example.rxtraining.entity.Entity;
 import com.example.rxtraining.exceptions.NotImplementedException;
+import com.example.rxtraining.rx.operators.BatchOperator;
+import com.example.rxtraining.rx.operators.CharGroupByOperator;
+import com.example.rxtraining.rx.operators.InFlightMetrics;
+import com.example.rxtraining.rx.operators.KeyAffinityLanes;
+import com.example.rxtraining.rx.operators.LoadingCache;
+import com.example.rxtraining.rx.operators.RequestCollapser;
+import com.example.rxtraining.rx.operators.SingleFlight;
+import com.example.rxtraining.rx.primitive.IntChunkOperator;
+import com.example.rxtraining.util.IntChunk;
+import com.example.rxtraining.util.IntChunkPool;
 
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
+import io.reactivex.Flowable;
 import io.reactivex.Observable;
+import io.reactivex.functions.Function;
 import io.reactivex.observables.GroupedObservable;
+import io.reactivex.schedulers.Schedulers;
 
 /**
  * @author Arthur Korchagin (artur.korchagin@simbirsoft.com)
@@ -40,6 +54,119 @@ public class RxTransformingTraining {
         return idObservable.flatMap(this::requestApiEntity);
     }
 
+    /**
+     * Преобразование идентификаторов в сущности с ограничением количества одновременных запросов
+     * {@link #requestApiEntity(int)}
+     *
+     * @param idObservable  - идентификаторы сущностей
+     * @param maxInFlight   - максимальное количество одновременно выполняемых запросов, остальные
+     *                      идентификаторы ждут в очереди
+     * @param preserveOrder - {@code true} если сущности должны эммититься в порядке
+     *                      идентификаторов. Тогда готовые раньше времени сущности ждут в буфере,
+     *                      который ограничен {@code maxInFlight} запросами. {@code false} -
+     *                      сущности эммитятся по мере получения
+     * @param metrics       - счётчики очереди и одновременных запросов
+     * @return {@link Observable<Entity>} эммитит сущности, соответствующие идентификаторам из
+     * {@code idObservable}
+     */
+    public Observable<Entity> requestEntityById(Observable<Integer> idObservable, int maxInFlight,
+                                                boolean preserveOrder, InFlightMetrics metrics) {
+        return Observable.defer(() -> {
+            InFlightMetrics.Session session = metrics.newSession();
+            Observable<Observable<Entity>> requests = idObservable
+                    .map(id -> session.track(() -> requestApiEntity(id)))
+                    // Без fusion map выполняется при поступлении идентификатора, а не при старте
+                    // запроса, и время ожидания в очереди учитывается
+                    .hide();
+            return (preserveOrder
+                    ? requests.concatMapEager(request -> request, maxInFlight, 1)
+                    : requests.flatMap(request -> request, maxInFlight))
+                    // Запросы, оставшиеся в очереди после отписки, уже не начнутся
+                    .doFinally(session::close);
+        });
+    }
+
+    /**
+     * Преобразование идентификаторов в сущности с объединением запросов: идентификаторы,
+     * поступившие в течение короткого окна, запрашиваются одним пакетным запросом
+     * {@link #requestApiEntities(int[])}
+     *
+     * @param idObservable - идентификаторы сущностей
+     * @param collapser    - объединитель запросов, созданный {@link #createEntityCollapser(int, long)},
+     *                     может использоваться несколькими подписчиками одновременно
+     * @return {@link Observable<Entity>} эммитит сущности, соответствующие идентификаторам из
+     * {@code idObservable}
+     */
+    public Observable<Entity> requestEntityById(Observable<Integer> idObservable, RequestCollapser<Entity> collapser) {
+        return idObservable.flatMap(collapser::request);
+    }
+
+    /**
+     * Создание объединителя запросов сущностей
+     *
+     * @param maxBatchSize - максимальное количество идентификаторов в одном пакетном запросе
+     * @param windowMills  - сколько миллисекунд ждать новых идентификаторов после первого
+     *                     идентификатора пакета
+     * @return {@link RequestCollapser} поверх {@link #requestApiEntities(int[])}
+     */
+    public RequestCollapser<Entity> createEntityCollapser(int maxBatchSize, long windowMills) {
+        return new RequestCollapser<>(this::requestApiEntities, Entity::getId,
+                maxBatchSize, windowMills, TimeUnit.MILLISECONDS, Schedulers.computation());
+    }
+
+    /**
+     * Преобразование идентификаторов в сущности с кэшированием: повторяющиеся идентификаторы
+     * берутся из кэша без запроса {@link #requestApiEntity(int)}
+     *
+     * @param idObservable - идентификаторы сущностей
+     * @param cache        - кэш сущностей, созданный {@link #createEntityCache(int, long, long)},
+     *                     может использоваться несколькими подписчиками одновременно
+     * @return {@link Observable<Entity>} эммитит сущности, соответствующие идентификаторам из
+     * {@code idObservable}
+     */
+    public Observable<Entity> requestEntityById(Observable<Integer> idObservable, LoadingCache<Entity> cache) {
+        return idObservable.flatMap(cache::get);
+    }
+
+    /**
+     * Создание кэша сущностей
+     *
+     * @param maxSize           - максимальное количество сущностей в кэше
+     * @param ttlMills          - время жизни сущности в кэше в миллисекундах
+     * @param refreshAheadMills - за сколько миллисекунд до истечения {@code ttlMills} обращение к
+     *                          сущности запускает её фоновую перезагрузку, {@code 0} - не
+     *                          перезагружать
+     * @return {@link LoadingCache} поверх {@link #requestApiEntity(int)}
+     */
+    public LoadingCache<Entity> createEntityCache(int maxSize, long ttlMills, long refreshAheadMills) {
+        return new LoadingCache<>(this::requestApiEntity, maxSize, ttlMills, refreshAheadMills,
+                TimeUnit.MILLISECONDS, Schedulers.computation());
+    }
+
+    /**
+     * Преобразование идентификаторов в сущности без дублирования одновременных запросов: если
+     * сущность с таким идентификатором уже запрашивается, подписчик получает результат того же
+     * запроса
+     *
+     * @param idObservable - идентификаторы сущностей
+     * @param singleFlight - выполняющиеся запросы, созданные {@link #createEntitySingleFlight()},
+     *                     используются несколькими подписчиками одновременно
+     * @return {@link Observable<Entity>} эммитит сущности, соответствующие идентификаторам из
+     * {@code idObservable}
+     */
+    public Observable<Entity> requestEntityById(Observable<Integer> idObservable, SingleFlight<Entity> singleFlight) {
+        return idObservable.flatMap(singleFlight::request);
+    }
+
+    /**
+     * Создание дедупликатора одновременных запросов сущностей
+     *
+     * @return {@link SingleFlight} поверх {@link #requestApiEntity(int)}
+     */
+    public SingleFlight<Entity> createEntitySingleFlight() {
+        return new SingleFlight<>(this::requestApiEntity);
+    }
+
     /**
      * Распределение имён из {@code namesObservable} по первой букве имени, в отдельные
      * {@link GroupedObservable}
@@ -50,7 +177,50 @@ public class RxTransformingTraining {
      */
     public Observable<GroupedObservable<Character, String>> distributeNamesByFirstLetter(Observable<String> namesObservable) {
         return namesObservable
-                .groupBy(name -> name.charAt(0));
+                .lift(new CharGroupByOperator<>(name -> name.charAt(0)));
+    }
+
+    /**
+     * Распределение имён из {@code namesObservable} по первой букве имени, в отдельные
+     * {@link GroupedObservable}, с завершением простаивающих групп
+     *
+     * @param idleTimeoutMills - время в миллисекундах, после которого группа, не получавшая новых
+     *                         имён, завершается. Следующее имя на ту же букву попадёт в новую
+     *                         группу
+     * @param namesObservable  - {@link Observable<String>} с именами
+     * @return {@link Observable} который эммитит {@link GroupedObservable} - сгруппированный
+     * поток имён объединённых первой буквой в имени
+     */
+    public Observable<GroupedObservable<Character, String>> distributeNamesByFirstLetter(long idleTimeoutMills,
+                                                                                       Observable<String> namesObservable) {
+        return namesObservable
+                .lift(new CharGroupByOperator<>(name -> name.charAt(0),
+                        idleTimeoutMills, TimeUnit.MILLISECONDS, Schedulers.computation()));
+    }
+
+    /**
+     * Параллельная обработка имён, распределённых по первой букве. Все имена на одну букву
+     * обрабатываются по порядку в одном потоке, а разные буквы распределяются по полосам
+     * {@code lanes}. Имена запрашиваются у источника по мере освобождения полос
+     *
+     * @param namesFlowable - {@link Flowable<String>} с именами
+     * @param lanes         - полосы обработки, созданные {@link #createNameLanes(int)}
+     * @param processor     - обработка имени
+     * @return {@link Flowable} который эммитит результаты обработки всех имён
+     */
+    public Flowable<String> processNamesByFirstLetter(Flowable<String> namesFlowable, KeyAffinityLanes lanes,
+                                                      Function<String, String> processor) {
+        return lanes.process(namesFlowable.groupBy(name -> name.charAt(0)), processor);
+    }
+
+    /**
+     * Создание полос параллельной обработки имён, по одной на ядро
+     *
+     * @param laneCapacity - максимальное количество имён в одной полосе
+     * @return {@link KeyAffinityLanes} на {@link Schedulers#computation()}
+     */
+    public KeyAffinityLanes createNameLanes(int laneCapacity) {
+        return new KeyAffinityLanes(Runtime.getRuntime().availableProcessors(), laneCapacity, Schedulers.computation());
     }
 
     /**
@@ -66,6 +236,53 @@ public class RxTransformingTraining {
                 .buffer(listsSize);
     }
 
+    /**
+     * Объединить элементы, полученные из {@code intObservable} в списки {@link List} с максимальным
+     * размером {@code listsSize}, не задерживая элементы дольше {@code maxDelayMills}
+     *
+     * @param listsSize     максимальный размер списка элементов
+     * @param maxDelayMills максимальное время в миллисекундах от получения первого элемента списка
+     *                      до его эммита
+     * @param intObservable {@link Observable} с произвольным количеством рандомных чисел
+     * @return {@code Observable} который эммитит списки чисел из {@code intObservable}, когда
+     * список заполнен или истекло время ожидания
+     */
+    public Observable<List<Integer>> collectsIntsToLists(int listsSize, long maxDelayMills, Observable<Integer> intObservable) {
+        return collectsIntsToAdaptiveLists(listsSize, listsSize, maxDelayMills, intObservable);
+    }
+
+    /**
+     * Объединить элементы, полученные из {@code intObservable} в списки {@link List}, размер
+     * которых подстраивается под время обработки списков подписчиком
+     *
+     * @param minListsSize  начальный и минимальный размер списка
+     * @param maxListsSize  максимальный размер списка
+     * @param maxDelayMills максимальное время в миллисекундах от получения первого элемента списка
+     *                      до его эммита
+     * @param intObservable {@link Observable} с произвольным количеством рандомных чисел
+     * @return {@code Observable} который эммитит списки чисел из {@code intObservable}
+     * @see BatchOperator
+     */
+    public Observable<List<Integer>> collectsIntsToAdaptiveLists(int minListsSize, int maxListsSize, long maxDelayMills,
+                                                                 Observable<Integer> intObservable) {
+        return intObservable
+                .lift(new BatchOperator<>(minListsSize, maxListsSize, maxDelayMills, TimeUnit.MILLISECONDS, Schedulers.computation()));
+    }
+
+    /**
+     * Объединить элементы, полученные из {@code intObservable} в переиспользуемые блоки
+     * {@link IntChunk} из пула {@code chunkPool}
+     *
+     * @param chunkPool     пул блоков, размер блока задаёт максимальный размер группы чисел
+     * @param intObservable {@link Observable} с произвольным количеством рандомных чисел
+     * @return {@code Observable} который эммитит блоки чисел из {@code intObservable}. Каждый
+     * полученный блок необходимо вернуть в пул вызовом {@link IntChunk#release()}
+     */
+    public Observable<IntChunk> collectsIntsToChunks(IntChunkPool chunkPool, Observable<Integer> intObservable) {
+        return intObservable
+                .lift(new IntChunkOperator(chunkPool));
+    }
+
     /* Вспомогательные методы */
 
     /**
@@ -77,7 +294,20 @@ public class RxTransformingTraining {
      */
     Observable<Entity> requestApiEntity(int id) {
         // Выполнение запроса и эммит сущности
-        return Observable.just(new Entity(id));
+        return Observable.just(Entity.of(id));
+    }
+
+    /**
+     * Выполнение пакетного HTTP запроса и эммит полученных сущностей, соответствующих
+     * заданным идентификаторам
+     *
+     * @param ids - Идентификаторы сущностей {@link Entity}
+     * @return {@link Observable<Entity>} который эммитит полученные сущности
+     */
+    Observable<Entity> requestApiEntities(int[] ids) {
+        // Выполнение пакетного запроса и эммит сущностей
+        return Observable.range(0, ids.length)
+                .map(index -> Entity.of(ids[index]));
     }
 
 }
@@ -0,0 +1,36 @@
+package com.example.rxtraining.rx.operators;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Обновление максимумов метрик. Значение записывается только если оно больше текущего, поэтому
+ * частый случай "не больше максимума" обходится одним чтением, без записи в общую переменную
+ */
+final class AtomicMax {
+
+    private AtomicMax() {
+    }
+
+    static void update(AtomicInteger max, int value) {
+        int current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // Повторяем, пока не обновим максимум
+        }
+    }
+
+    static void update(AtomicLong max, long value) {
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // Повторяем, пока не обновим максимум
+        }
+    }
+
+    static void update(AtomicLongArray max, int index, long value) {
+        long current;
+        while (value > (current = max.get(index)) && !max.compareAndSet(index, current, value)) {
+            // Повторяем, пока не обновим максимум
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.rxtraining.rx.operators;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.ObservableOperator;
+import io.reactivex.Observer;
+import io.reactivex.Scheduler;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.internal.disposables.DisposableHelper;
+import io.reactivex.internal.disposables.SequentialDisposable;
+
+/**
+ * Группировка элементов в списки по размеру или по времени ожидания, смотря что наступит
+ * раньше. Таймер запускается первым элементом списка, поэтому ни один элемент не ждёт отправки
+ * дольше {@code maxDelay}, а пустые списки не эммитятся.
+ * <p>
+ * Если {@code minSize < maxSize}, целевой размер списка подстраивается под время обработки
+ * списка подписчиком: пока списки заполняются раньше таймера и обрабатываются быстрее
+ * {@code maxDelay}, размер растёт (обработка списка амортизируется на большее число элементов),
+ * а если обработка списка дольше {@code maxDelay} - размер уменьшается вдвое.
+ */
+public final class BatchOperator<T> implements ObservableOperator<List<T>, T> {
+
+    private final int mMinSize;
+    private final int mMaxSize;
+    private final long mMaxDelay;
+    private final TimeUnit mUnit;
+    private final Scheduler mScheduler;
+
+    /**
+     * @param minSize   начальный и минимальный размер списка
+     * @param maxSize   максимальный размер списка, равен {@code minSize} если подстройка не нужна
+     * @param maxDelay  максимальное время ожидания первого элемента списка
+     * @param unit      единица измерения {@code maxDelay}
+     * @param scheduler планировщик таймера и источник текущего времени
+     */
+    public BatchOperator(int minSize, int maxSize, long maxDelay, TimeUnit unit, Scheduler scheduler) {
+        if (minSize <= 0 || maxSize < minSize) {
+            throw new IllegalArgumentException("Invalid sizes: minSize=" + minSize + ", maxSize=" + maxSize);
+        }
+        if (maxDelay <= 0) {
+            throw new IllegalArgumentException("maxDelay <= 0: " + maxDelay);
+        }
+        mMinSize = minSize;
+        mMaxSize = maxSize;
+        mMaxDelay = maxDelay;
+        mUnit = unit;
+        mScheduler = scheduler;
+    }
+
+    @Override
+    public Observer<? super T> apply(Observer<? super List<T>> observer) {
+        return new BatchObserver<>(observer, this, mScheduler.createWorker());
+    }
+
+    private static final class BatchObserver<T> implements Observer<T>, Disposable {
+
+        private final Observer<? super List<T>> mDownstream;
+        private final BatchOperator<T> mParent;
+        private final Scheduler.Worker mWorker;
+        private final SequentialDisposable mTimer = new SequentialDisposable();
+        private final long mMaxDelayNanos;
+        private Disposable mUpstream;
+
+        /* Состояние ниже защищено монитором this */
+        private List<T> mBatch;
+        private int mTargetSize;
+        private long mBatchIndex;
+        private boolean mDone;
+
+        BatchObserver(Observer<? super List<T>> downstream, BatchOperator<T> parent, Scheduler.Worker worker) {
+            mDownstream = downstream;
+            mParent = parent;
+            mWorker = worker;
+            mTargetSize = parent.mMinSize;
+            mMaxDelayNanos = parent.mUnit.toNanos(parent.mMaxDelay);
+        }
+
+        @Override
+        public void onSubscribe(Disposable d) {
+            if (DisposableHelper.validate(mUpstream, d)) {
+                mUpstream = d;
+                mDownstream.onSubscribe(this);
+            }
+        }
+
+        @Override
+        public synchronized void onNext(T value) {
+            if (mDone) {
+                return;
+            }
+            if (mBatch == null) {
+                mBatch = new ArrayList<>(mTargetSize);
+                final long batchIndex = mBatchIndex;
+                mTimer.replace(mWorker.schedule(() -> onTimeout(batchIndex), mParent.mMaxDelay, mParent.mUnit));
+            }
+            mBatch.add(value);
+            if (mBatch.size() >= mTargetSize) {
+                flush(true);
+            }
+        }
+
+        @Override
+        public synchronized void onError(Throwable e) {
+            if (mDone) {
+                return;
+            }
+            mDone = true;
+            mBatch = null;
+            mWorker.dispose();
+            mDownstream.onError(e);
+        }
+
+        @Override
+        public synchronized void onComplete() {
+            if (mDone) {
+                return;
+            }
+            if (mBatch != null) {
+                flush(false);
+            }
+            mDone = true;
+            mWorker.dispose();
+            mDownstream.onComplete();
+        }
+
+        @Override
+        public void dispose() {
+            mUpstream.dispose();
+            mWorker.dispose();
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return mUpstream.isDisposed();
+        }
+
+        private synchronized void onTimeout(long batchIndex) {
+            if (!mDone && batchIndex == mBatchIndex && mBatch != null) {
+                flush(false);
+            }
+        }
+
+        private void flush(boolean bySize) {
+            List<T> batch = mBatch;
+            mBatch = null;
+            mBatchIndex++;
+            mTimer.update(null);
+
+            long start = mWorker.now(TimeUnit.NANOSECONDS);
+            mDownstream.onNext(batch);
+            long processingNanos = mWorker.now(TimeUnit.NANOSECONDS) - start;
+            adapt(bySize, processingNanos);
+        }
+
+        private void adapt(boolean bySize, long processingNanos) {
+            BatchOperator<T> parent = mParent;
+            if (parent.mMinSize == parent.mMaxSize) {
+                return;
+            }
+            if (processingNanos > mMaxDelayNanos) {
+                mTargetSize = Math.max(parent.mMinSize, mTargetSize / 2);
+            } else if (bySize) {
+                mTargetSize = Math.min(parent.mMaxSize, mTargetSize + Math.max(1, mTargetSize / 4));
+            }
+        }
+    }
+}
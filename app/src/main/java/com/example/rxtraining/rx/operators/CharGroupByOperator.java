@@ -0,0 +1,278 @@
+package com.example.rxtraining.rx.operators;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToIntFunction;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableOperator;
+import io.reactivex.Observer;
+import io.reactivex.Scheduler;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.exceptions.Exceptions;
+import io.reactivex.internal.disposables.DisposableHelper;
+import io.reactivex.observables.GroupedObservable;
+import io.reactivex.plugins.RxJavaPlugins;
+import io.reactivex.subjects.UnicastSubject;
+
+/**
+ * Группировка элементов по ключу-символу. В отличие от {@code groupBy} группы хранятся в
+ * таблице, индексированной самим символом (256 страниц по 256 ячеек, страницы создаются по мере
+ * надобности), поэтому на элемент не приходится ни упаковки ключа, ни поиска в хеш-таблице.
+ * <p>
+ * Если задан {@code idleTimeout}, группа, не получавшая элементов дольше этого времени,
+ * завершается ({@code onComplete}) и её ячейка освобождается; следующий элемент с тем же ключом
+ * создаст новую группу. Так количество одновременно живущих групп не растёт бесконечно.
+ * <p>
+ * Как и в {@code groupBy}, отписка от последовательности групп не отменяет уже выданные группы:
+ * от источника отписываемся, только когда отписались и от последовательности групп, и от всех
+ * активных групп. Новые группы после отписки от последовательности групп не создаются.
+ */
+public final class CharGroupByOperator<T> implements ObservableOperator<GroupedObservable<Character, T>, T> {
+
+    private static final int PAGE_BITS = 8;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private final ToIntFunction<T> mKeySelector;
+    private final long mIdleTimeout;
+    private final TimeUnit mUnit;
+    private final Scheduler mScheduler;
+
+    /**
+     * Группировка без вытеснения групп
+     *
+     * @param keySelector ключ элемента, используются младшие 16 бит
+     */
+    public CharGroupByOperator(ToIntFunction<T> keySelector) {
+        this(keySelector, 0, TimeUnit.MILLISECONDS, null);
+    }
+
+    /**
+     * @param keySelector ключ элемента, используются младшие 16 бит
+     * @param idleTimeout время без элементов, после которого группа завершается
+     * @param unit        единица измерения {@code idleTimeout}
+     * @param scheduler   планировщик проверки простаивающих групп
+     */
+    public CharGroupByOperator(ToIntFunction<T> keySelector, long idleTimeout, TimeUnit unit, Scheduler scheduler) {
+        if (idleTimeout < 0) {
+            throw new IllegalArgumentException("idleTimeout < 0: " + idleTimeout);
+        }
+        mKeySelector = keySelector;
+        mIdleTimeout = idleTimeout;
+        mUnit = unit;
+        mScheduler = scheduler;
+    }
+
+    @Override
+    public Observer<? super T> apply(Observer<? super GroupedObservable<Character, T>> observer) {
+        return new GroupByObserver<>(observer, this);
+    }
+
+    private static final class GroupByObserver<T> implements Observer<T>, Disposable {
+
+        private final Observer<? super GroupedObservable<Character, T>> mDownstream;
+        private final ToIntFunction<T> mKeySelector;
+        private final long mIdleTimeout;
+        private final TimeUnit mUnit;
+        private final Scheduler.Worker mWorker;
+        private Disposable mUpstream;
+
+        /** Отписка от последовательности групп */
+        private final AtomicBoolean mCancelled = new AtomicBoolean();
+        /** Последовательность групп, пока от неё не отписались, плюс активные группы */
+        private final AtomicInteger mActive = new AtomicInteger(1);
+
+        /* Состояние ниже защищено монитором this */
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private final CharGroup<T>[][] mPages = new CharGroup[PAGE_SIZE][];
+        private int mGroupCount;
+        private boolean mDone;
+
+        GroupByObserver(Observer<? super GroupedObservable<Character, T>> downstream, CharGroupByOperator<T> parent) {
+            mDownstream = downstream;
+            mKeySelector = parent.mKeySelector;
+            mIdleTimeout = parent.mIdleTimeout;
+            mUnit = parent.mUnit;
+            mWorker = parent.mIdleTimeout > 0 ? parent.mScheduler.createWorker() : null;
+        }
+
+        @Override
+        public void onSubscribe(Disposable d) {
+            if (DisposableHelper.validate(mUpstream, d)) {
+                mUpstream = d;
+                mDownstream.onSubscribe(this);
+                if (mWorker != null) {
+                    mWorker.schedulePeriodically(this::evictIdle, mIdleTimeout, mIdleTimeout, mUnit);
+                }
+            }
+        }
+
+        @Override
+        public synchronized void onNext(T value) {
+            if (mDone) {
+                return;
+            }
+            char key;
+            try {
+                key = (char) mKeySelector.applyAsInt(value);
+            } catch (Throwable e) {
+                Exceptions.throwIfFatal(e);
+                mUpstream.dispose();
+                onError(e);
+                return;
+            }
+            CharGroup<T>[] page = mPages[key >>> PAGE_BITS];
+            if (page == null) {
+                @SuppressWarnings({"unchecked", "rawtypes"})
+                CharGroup<T>[] created = new CharGroup[PAGE_SIZE];
+                page = created;
+                mPages[key >>> PAGE_BITS] = page;
+            }
+            CharGroup<T> group = page[key & PAGE_MASK];
+            boolean isNew = group == null;
+            if (isNew) {
+                if (mCancelled.get()) {
+                    return;
+                }
+                group = new CharGroup<>(key, this);
+                page[key & PAGE_MASK] = group;
+                mGroupCount++;
+                mActive.incrementAndGet();
+            }
+            if (mWorker != null) {
+                group.mLastSeen = mWorker.now(mUnit);
+            }
+            if (isNew) {
+                mDownstream.onNext(group);
+            }
+            group.mSubject.onNext(value);
+        }
+
+        @Override
+        public synchronized void onError(Throwable e) {
+            if (mDone) {
+                RxJavaPlugins.onError(e);
+                return;
+            }
+            mDone = true;
+            disposeWorker();
+            for (CharGroup<T> group : removeAll()) {
+                group.mSubject.onError(e);
+            }
+            mDownstream.onError(e);
+        }
+
+        @Override
+        public synchronized void onComplete() {
+            if (mDone) {
+                return;
+            }
+            mDone = true;
+            disposeWorker();
+            for (CharGroup<T> group : removeAll()) {
+                group.mSubject.onComplete();
+            }
+            mDownstream.onComplete();
+        }
+
+        @Override
+        public void dispose() {
+            if (mCancelled.compareAndSet(false, true)) {
+                release();
+            }
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return mCancelled.get();
+        }
+
+        /**
+         * Группа завершилась или от неё отписались
+         */
+        synchronized void onGroupTerminated(CharGroup<T> group) {
+            CharGroup<T>[] page = mPages[group.getKey() >>> PAGE_BITS];
+            if (page != null && page[group.getKey() & PAGE_MASK] == group) {
+                page[group.getKey() & PAGE_MASK] = null;
+                mGroupCount--;
+            }
+            release();
+        }
+
+        private void release() {
+            if (mActive.decrementAndGet() == 0) {
+                mUpstream.dispose();
+                disposeWorker();
+            }
+        }
+
+        private synchronized void evictIdle() {
+            if (mDone) {
+                return;
+            }
+            long idleSince = mWorker.now(mUnit) - mIdleTimeout;
+            for (CharGroup<T>[] page : mPages) {
+                if (page == null) {
+                    continue;
+                }
+                for (int i = 0; i < PAGE_SIZE; i++) {
+                    CharGroup<T> group = page[i];
+                    if (group != null && group.mLastSeen <= idleSince) {
+                        // Ячейку освободит onGroupTerminated
+                        group.mSubject.onComplete();
+                    }
+                }
+            }
+        }
+
+        private CharGroup<T>[] removeAll() {
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            CharGroup<T>[] groups = new CharGroup[mGroupCount];
+            int count = 0;
+            for (int p = 0; p < PAGE_SIZE; p++) {
+                CharGroup<T>[] page = mPages[p];
+                if (page == null) {
+                    continue;
+                }
+                for (int i = 0; i < PAGE_SIZE; i++) {
+                    if (page[i] != null) {
+                        groups[count++] = page[i];
+                    }
+                }
+                mPages[p] = null;
+            }
+            mGroupCount = 0;
+            return groups;
+        }
+
+        private void disposeWorker() {
+            if (mWorker != null) {
+                mWorker.dispose();
+            }
+        }
+    }
+
+    private static final class CharGroup<T> extends GroupedObservable<Character, T> {
+
+        final UnicastSubject<T> mSubject;
+        long mLastSeen;
+
+        CharGroup(char key, GroupByObserver<T> parent) {
+            super(key);
+            AtomicBoolean terminated = new AtomicBoolean();
+            // Вызывается и при завершении группы, и при отписке её подписчика
+            mSubject = UnicastSubject.create(Observable.bufferSize(), () -> {
+                if (terminated.compareAndSet(false, true)) {
+                    parent.onGroupTerminated(this);
+                }
+            });
+        }
+
+        @Override
+        protected void subscribeActual(Observer<? super T> observer) {
+            mSubject.subscribe(observer);
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package com.example.rxtraining.rx.operators;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.reactivex.Flowable;
+import io.reactivex.FlowableSubscriber;
+import io.reactivex.exceptions.MissingBackpressureException;
+import io.reactivex.internal.queue.SpscArrayQueue;
+import io.reactivex.internal.subscriptions.SubscriptionHelper;
+import io.reactivex.internal.util.BackpressureHelper;
+import io.reactivex.plugins.RxJavaPlugins;
+
+/**
+ * Честное объединение нескольких источников: у каждого источника запрашивается не больше
+ * {@code prefetch} элементов вперёд, а подписчику элементы выдаются по кругу, не больше одного
+ * от источника за проход. Поэтому частый источник не вытесняет редкий и не переполняет память:
+ * пока его элементы не выданы, новые у него не запрашиваются.
+ * <p>
+ * Если заданы {@link LatencyMetrics}, для каждого источника измеряется время от получения
+ * элемента до передачи его подписчику.
+ * <p>
+ * Ошибка любого источника сразу передаётся подписчику, завершение - когда завершились все
+ * источники и все их элементы выданы.
+ */
+public final class FlowableFairMerge<T> extends Flowable<T> {
+
+    private final List<? extends Publisher<? extends T>> mSources;
+    private final int mPrefetch;
+    private final List<LatencyMetrics> mLatencies;
+
+    /**
+     * @param sources   источники
+     * @param prefetch  сколько элементов запрашивать вперёд у каждого источника
+     * @param latencies задержки для каждого источника в том же порядке, либо {@code null}
+     */
+    public FlowableFairMerge(List<? extends Publisher<? extends T>> sources, int prefetch,
+                             List<LatencyMetrics> latencies) {
+        if (prefetch <= 0) {
+            throw new IllegalArgumentException("prefetch <= 0: " + prefetch);
+        }
+        if (latencies != null && latencies.size() != sources.size()) {
+            throw new IllegalArgumentException("latencies.size() != sources.size()");
+        }
+        mSources = sources;
+        mPrefetch = prefetch;
+        mLatencies = latencies;
+    }
+
+    @Override
+    protected void subscribeActual(Subscriber<? super T> s) {
+        MergeCoordinator<T> coordinator = new MergeCoordinator<>(s, mSources.size(), mPrefetch, mLatencies);
+        s.onSubscribe(coordinator);
+        coordinator.subscribe(mSources);
+    }
+
+    private static final class MergeCoordinator<T> extends AtomicInteger implements Subscription {
+
+        private static final long serialVersionUID = 6052154390382761245L;
+
+        private final Subscriber<? super T> mDownstream;
+        private final InnerSubscriber<T>[] mInners;
+        private final AtomicLong mRequested = new AtomicLong();
+        private final AtomicReference<Throwable> mError = new AtomicReference<>();
+
+        private volatile boolean mCancelled;
+        /** Доступ только из цикла {@link #drain()} */
+        private long mEmitted;
+        private int mIndex;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        MergeCoordinator(Subscriber<? super T> downstream, int count, int prefetch, List<LatencyMetrics> latencies) {
+            mDownstream = downstream;
+            mInners = new InnerSubscriber[count];
+            for (int i = 0; i < count; i++) {
+                mInners[i] = new InnerSubscriber<>(this, prefetch, latencies != null ? latencies.get(i) : null);
+            }
+        }
+
+        void subscribe(List<? extends Publisher<? extends T>> sources) {
+            for (int i = 0; i < mInners.length && !mCancelled; i++) {
+                sources.get(i).subscribe(mInners[i]);
+            }
+        }
+
+        @Override
+        public void request(long n) {
+            if (SubscriptionHelper.validate(n)) {
+                BackpressureHelper.add(mRequested, n);
+                drain();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            if (!mCancelled) {
+                mCancelled = true;
+                cancelAll();
+                if (getAndIncrement() == 0) {
+                    clearAll();
+                }
+            }
+        }
+
+        void onError(Throwable e) {
+            if (mError.compareAndSet(null, e)) {
+                drain();
+            } else {
+                RxJavaPlugins.onError(e);
+            }
+        }
+
+        void drain() {
+            if (getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            Subscriber<? super T> downstream = mDownstream;
+            InnerSubscriber<T>[] inners = mInners;
+            int count = inners.length;
+
+            for (;;) {
+                long requested = mRequested.get();
+                long emitted = mEmitted;
+                int index = mIndex;
+
+                for (;;) {
+                    if (mCancelled) {
+                        clearAll();
+                        return;
+                    }
+                    Throwable error = mError.get();
+                    if (error != null) {
+                        mCancelled = true;
+                        cancelAll();
+                        clearAll();
+                        downstream.onError(error);
+                        return;
+                    }
+
+                    // Один проход по кругу: не больше одного элемента от каждого источника
+                    boolean progressed = false;
+                    for (int i = 0; i < count && emitted != requested; i++) {
+                        InnerSubscriber<T> inner = inners[index];
+                        index = index + 1 == count ? 0 : index + 1;
+                        T value = inner.poll();
+                        if (value != null) {
+                            downstream.onNext(value);
+                            emitted++;
+                            progressed = true;
+                        }
+                    }
+
+                    if (!progressed || emitted == requested) {
+                        if (isAllDone()) {
+                            mCancelled = true;
+                            downstream.onComplete();
+                            return;
+                        }
+                        break;
+                    }
+                }
+
+                mEmitted = emitted;
+                mIndex = index;
+                missed = addAndGet(-missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+
+        private boolean isAllDone() {
+            for (InnerSubscriber<T> inner : mInners) {
+                if (!inner.mDone || !inner.mQueue.isEmpty()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void cancelAll() {
+            for (InnerSubscriber<T> inner : mInners) {
+                SubscriptionHelper.cancel(inner.mUpstream);
+            }
+        }
+
+        private void clearAll() {
+            for (InnerSubscriber<T> inner : mInners) {
+                inner.mQueue.clear();
+            }
+        }
+    }
+
+    private static final class InnerSubscriber<T> implements FlowableSubscriber<T> {
+
+        private final MergeCoordinator<T> mParent;
+        private final int mPrefetch;
+        private final int mLimit;
+        private final LatencyMetrics mLatency;
+        final AtomicReference<Subscription> mUpstream = new AtomicReference<>();
+        final SpscArrayQueue<T> mQueue;
+
+        /**
+         * Моменты получения элементов из очереди, по тем же индексам. Пишет поток источника,
+         * читает цикл выдачи: запись видна, так как делается до помещения элемента в очередь
+         */
+        private final long[] mArrivals;
+        private final int mArrivalsMask;
+        private long mProduced;
+        private long mConsumed;
+
+        /** Сколько элементов выдано с последнего запроса, доступ только из цикла выдачи */
+        private int mSinceRequest;
+        volatile boolean mDone;
+
+        InnerSubscriber(MergeCoordinator<T> parent, int prefetch, LatencyMetrics latency) {
+            mParent = parent;
+            mPrefetch = prefetch;
+            mLimit = prefetch - (prefetch >> 2);
+            mLatency = latency;
+            mQueue = new SpscArrayQueue<>(prefetch);
+            int arrivals = latency != null ? Integer.highestOneBit(Math.max(1, prefetch - 1)) << 1 : 0;
+            mArrivals = new long[arrivals];
+            mArrivalsMask = arrivals - 1;
+        }
+
+        @Override
+        public void onSubscribe(Subscription s) {
+            if (SubscriptionHelper.setOnce(mUpstream, s)) {
+                s.request(mPrefetch);
+            }
+        }
+
+        @Override
+        public void onNext(T value) {
+            if (mLatency != null) {
+                mArrivals[(int) (mProduced++ & mArrivalsMask)] = System.nanoTime();
+            }
+            if (!mQueue.offer(value)) {
+                SubscriptionHelper.cancel(mUpstream);
+                onError(new MissingBackpressureException("Source emitted more than requested"));
+                return;
+            }
+            mParent.drain();
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            mParent.onError(e);
+        }
+
+        @Override
+        public void onComplete() {
+            mDone = true;
+            mParent.drain();
+        }
+
+        /**
+         * Элемент для выдачи подписчику, с учётом задержки и пополнением запроса к источнику.
+         * Вызывается только из цикла выдачи
+         */
+        T poll() {
+            T value = mQueue.poll();
+            if (value != null) {
+                if (mLatency != null) {
+                    long arrival = mArrivals[(int) (mConsumed++ & mArrivalsMask)];
+                    mLatency.record(System.nanoTime() - arrival, TimeUnit.NANOSECONDS);
+                }
+                if (++mSinceRequest == mLimit) {
+                    mSinceRequest = 0;
+                    mUpstream.get().request(mLimit);
+                }
+            }
+            return value;
+        }
+    }
+}
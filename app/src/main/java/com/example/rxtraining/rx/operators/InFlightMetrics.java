@@ -0,0 +1,156 @@
+package com.example.rxtraining.rx.operators;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.Observable;
+import io.reactivex.functions.Action;
+
+/**
+ * Счётчики очереди запросов: сколько запросов ждут своей очереди, сколько выполняются прямо
+ * сейчас и сколько в среднем и максимум запрос ждал начала выполнения. Потокобезопасен.
+ */
+public final class InFlightMetrics {
+
+    private final AtomicInteger mQueued = new AtomicInteger();
+    private final AtomicInteger mInFlight = new AtomicInteger();
+    private final AtomicInteger mMaxInFlight = new AtomicInteger();
+    private final AtomicLong mStarted = new AtomicLong();
+    private final AtomicLong mFinished = new AtomicLong();
+    private final AtomicLong mTotalWaitNanos = new AtomicLong();
+    private final AtomicLong mMaxWaitNanos = new AtomicLong();
+
+    /**
+     * @return очередь запросов одной подписки, см. {@link Session}
+     */
+    public Session newSession() {
+        return new Session();
+    }
+
+    /**
+     * Запрос поставлен в очередь
+     *
+     * @return момент постановки в очередь, который нужно передать в {@link #onStarted(long)}
+     */
+    public long onQueued() {
+        mQueued.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    /**
+     * Запрос начал выполняться
+     *
+     * @param queuedAt значение, полученное из {@link #onQueued()}
+     */
+    public void onStarted(long queuedAt) {
+        mQueued.decrementAndGet();
+        started(queuedAt);
+    }
+
+    private void started(long queuedAt) {
+        long waitNanos = System.nanoTime() - queuedAt;
+        mStarted.incrementAndGet();
+        mTotalWaitNanos.addAndGet(waitNanos);
+        AtomicMax.update(mMaxWaitNanos, waitNanos);
+
+        AtomicMax.update(mMaxInFlight, mInFlight.incrementAndGet());
+    }
+
+    /**
+     * Запрос завершился успешно, с ошибкой или был отменён
+     */
+    public void onFinished() {
+        mInFlight.decrementAndGet();
+        mFinished.incrementAndGet();
+    }
+
+    public int queued() {
+        return mQueued.get();
+    }
+
+    public int inFlight() {
+        return mInFlight.get();
+    }
+
+    /**
+     * @return максимальное количество одновременно выполнявшихся запросов
+     */
+    public int maxInFlight() {
+        return mMaxInFlight.get();
+    }
+
+    public long started() {
+        return mStarted.get();
+    }
+
+    public long finished() {
+        return mFinished.get();
+    }
+
+    public long averageWait(TimeUnit unit) {
+        long started = mStarted.get();
+        return started == 0 ? 0 : unit.convert(mTotalWaitNanos.get() / started, TimeUnit.NANOSECONDS);
+    }
+
+    public long maxWait(TimeUnit unit) {
+        return unit.convert(mMaxWaitNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Запросы одной подписки. Запрос, поставленный в очередь, но так и не начатый до
+     * {@link #close()} (например, из-за отписки), снимается со счётчика ожидающих
+     */
+    public final class Session {
+
+        private final Set<Object> mQueuedRequests = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+        /**
+         * Учёт запроса: вызывается в момент постановки запроса в очередь, а сам запрос
+         * {@code request} создаётся и считается начатым только при подписке на результат
+         *
+         * @param request создание запроса
+         * @return {@link Observable} запроса, который обновляет счётчики при подписке и завершении
+         */
+        public <T> Observable<T> track(Callable<Observable<T>> request) {
+            Object token = new Object();
+            long queuedAt = onQueued();
+            mQueuedRequests.add(token);
+            return Observable.defer(() -> {
+                if (mQueuedRequests.remove(token)) {
+                    onStarted(queuedAt);
+                } else {
+                    // Уже снят со счётчика ожидающих в close()
+                    started(queuedAt);
+                }
+                AtomicBoolean finished = new AtomicBoolean();
+                // До терминального события, чтобы следующий запрос из очереди уже видел
+                // освободившееся место
+                Action onFinished = () -> {
+                    if (finished.compareAndSet(false, true)) {
+                        onFinished();
+                    }
+                };
+                return request.call()
+                        .doOnTerminate(onFinished)
+                        .doOnDispose(onFinished);
+            });
+        }
+
+        /**
+         * Снятие с очереди всех не начатых запросов подписки
+         */
+        public void close() {
+            for (Object token : mQueuedRequests) {
+                if (mQueuedRequests.remove(token)) {
+                    mQueued.decrementAndGet();
+                }
+            }
+        }
+    }
+}
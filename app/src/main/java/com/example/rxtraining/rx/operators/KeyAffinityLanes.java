@@ -0,0 +1,459 @@
+package com.example.rxtraining.rx.operators;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.reactivex.Flowable;
+import io.reactivex.FlowableSubscriber;
+import io.reactivex.Scheduler;
+import io.reactivex.disposables.CompositeDisposable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.exceptions.Exceptions;
+import io.reactivex.flowables.GroupedFlowable;
+import io.reactivex.functions.Function;
+import io.reactivex.internal.queue.SpscArrayQueue;
+import io.reactivex.internal.subscriptions.SubscriptionHelper;
+import io.reactivex.internal.util.BackpressureHelper;
+import io.reactivex.plugins.RxJavaPlugins;
+
+/**
+ * Параллельная обработка сгруппированных элементов с привязкой ключа к потоку. Каждый ключ
+ * группы по хешу закрепляется за одной из {@code laneCount} полос, полоса выполняет свои задачи
+ * последовательно на одном {@link Scheduler.Worker}. Поэтому элементы одного ключа
+ * обрабатываются по порядку, а разные ключи - параллельно.
+ * <p>
+ * У каждой полосы {@code laneCapacity} разрешений: элемент запрашивается у группы
+ * ({@code request(1)}) только под свободное разрешение, а разрешение возвращается, когда
+ * результат обработки выдан подписчику. Поэтому в полосе никогда не больше {@code laneCapacity}
+ * элементов, а медленная обработка или медленный подписчик притормаживают источник, а не
+ * переполняют очередь. Группы одной полосы получают разрешения по очереди.
+ * <p>
+ * Счётчики полос накапливаются за все подписки и позволяют увидеть перекос нагрузки, когда
+ * один ключ забирает большую часть элементов.
+ */
+public final class KeyAffinityLanes {
+
+    private final int mLaneCount;
+    private final int mLaneCapacity;
+    private final Scheduler mScheduler;
+
+    private final AtomicLongArray mProcessed;
+    private final AtomicLongArray mMaxQueued;
+
+    /**
+     * @param laneCount    количество полос, обычно по количеству ядер
+     * @param laneCapacity максимальное количество элементов в одной полосе
+     * @param scheduler    планировщик, воркеры которого выполняют полосы
+     */
+    public KeyAffinityLanes(int laneCount, int laneCapacity, Scheduler scheduler) {
+        if (laneCount <= 0 || laneCapacity <= 0) {
+            throw new IllegalArgumentException("laneCount=" + laneCount + ", laneCapacity=" + laneCapacity);
+        }
+        mLaneCount = laneCount;
+        mLaneCapacity = laneCapacity;
+        mScheduler = scheduler;
+        mProcessed = new AtomicLongArray(laneCount);
+        mMaxQueued = new AtomicLongArray(laneCount);
+    }
+
+    /**
+     * @param groups    сгруппированные элементы
+     * @param processor обработка элемента, выполняется на полосе ключа группы
+     * @return {@link Flowable} который эммитит результаты обработки всех элементов всех групп
+     */
+    public <K, T, R> Flowable<R> process(Flowable<? extends GroupedFlowable<K, T>> groups,
+                                         Function<? super T, ? extends R> processor) {
+        return new LanesFlowable<>(groups, processor);
+    }
+
+    public int laneCount() {
+        return mLaneCount;
+    }
+
+    /**
+     * @return сколько элементов обработала полоса {@code lane}
+     */
+    public long processed(int lane) {
+        return mProcessed.get(lane);
+    }
+
+    /**
+     * @return максимальное количество элементов, одновременно находившихся в полосе {@code lane}
+     */
+    public long maxQueued(int lane) {
+        return mMaxQueued.get(lane);
+    }
+
+    /**
+     * @return отношение количества элементов самой загруженной полосы к среднему по полосам:
+     * {@code 1} - нагрузка распределена равномерно, {@code laneCount} - всё досталось одной полосе
+     */
+    public double skew() {
+        long total = 0;
+        long max = 0;
+        for (int i = 0; i < mLaneCount; i++) {
+            long processed = mProcessed.get(i);
+            total += processed;
+            max = Math.max(max, processed);
+        }
+        return total == 0 ? 1 : (double) max * mLaneCount / total;
+    }
+
+    int laneOf(Object key) {
+        int h = key == null ? 0 : key.hashCode();
+        h ^= h >>> 16;
+        return (h & Integer.MAX_VALUE) % mLaneCount;
+    }
+
+    private final class LanesFlowable<K, T, R> extends Flowable<R> {
+
+        private final Flowable<? extends GroupedFlowable<K, T>> mGroups;
+        private final Function<? super T, ? extends R> mProcessor;
+
+        LanesFlowable(Flowable<? extends GroupedFlowable<K, T>> groups, Function<? super T, ? extends R> processor) {
+            mGroups = groups;
+            mProcessor = processor;
+        }
+
+        @Override
+        protected void subscribeActual(Subscriber<? super R> s) {
+            LanesCoordinator<K, T, R> coordinator = new LanesCoordinator<>(s, mProcessor);
+            s.onSubscribe(coordinator);
+            coordinator.subscribe(mGroups);
+        }
+    }
+
+    private final class LanesCoordinator<K, T, R> extends AtomicInteger implements Subscription {
+
+        private static final long serialVersionUID = -2717375592453393385L;
+
+        private final Subscriber<? super R> mDownstream;
+        private final Function<? super T, ? extends R> mProcessor;
+        private final CompositeDisposable mResources = new CompositeDisposable();
+        private final List<Lane> mLanes;
+        private final AtomicLong mRequested = new AtomicLong();
+        private final AtomicReference<Throwable> mError = new AtomicReference<>();
+        /** Незавершённые источник, группы и задачи полос */
+        private final AtomicInteger mActive = new AtomicInteger(1);
+
+        private volatile boolean mCancelled;
+        /** Доступ только из цикла {@link #drain()} */
+        private long mEmitted;
+        private int mIndex;
+
+        LanesCoordinator(Subscriber<? super R> downstream, Function<? super T, ? extends R> processor) {
+            mDownstream = downstream;
+            mProcessor = processor;
+            mLanes = new ArrayList<>(mLaneCount);
+            for (int i = 0; i < mLaneCount; i++) {
+                Lane lane = new Lane(i, mScheduler.createWorker());
+                mLanes.add(lane);
+                mResources.add(lane.mWorker);
+            }
+        }
+
+        void subscribe(Flowable<? extends GroupedFlowable<K, T>> groups) {
+            groups.subscribe(new GroupsSubscriber());
+        }
+
+        @Override
+        public void request(long n) {
+            if (SubscriptionHelper.validate(n)) {
+                BackpressureHelper.add(mRequested, n);
+                drain();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            if (!mCancelled) {
+                mCancelled = true;
+                mResources.dispose();
+                if (getAndIncrement() == 0) {
+                    clearAll();
+                }
+            }
+        }
+
+        void onError(Throwable e) {
+            if (mError.compareAndSet(null, e)) {
+                drain();
+            } else {
+                RxJavaPlugins.onError(e);
+            }
+        }
+
+        void release() {
+            mActive.decrementAndGet();
+            drain();
+        }
+
+        void drain() {
+            if (getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            Subscriber<? super R> downstream = mDownstream;
+            List<Lane> lanes = mLanes;
+            int count = lanes.size();
+
+            for (;;) {
+                long requested = mRequested.get();
+                long emitted = mEmitted;
+                int index = mIndex;
+
+                for (;;) {
+                    if (mCancelled) {
+                        clearAll();
+                        return;
+                    }
+                    Throwable error = mError.get();
+                    if (error != null) {
+                        mCancelled = true;
+                        mResources.dispose();
+                        clearAll();
+                        downstream.onError(error);
+                        return;
+                    }
+
+                    // Один проход по полосам: не больше одного результата от каждой
+                    boolean progressed = false;
+                    for (int i = 0; i < count && emitted != requested; i++) {
+                        Lane lane = lanes.get(index);
+                        index = index + 1 == count ? 0 : index + 1;
+                        R result = lane.mResults.poll();
+                        if (result != null) {
+                            downstream.onNext(result);
+                            emitted++;
+                            progressed = true;
+                            lane.mCredit.incrementAndGet();
+                            lane.dispatch();
+                        }
+                    }
+
+                    if (!progressed || emitted == requested) {
+                        if (mActive.get() == 0 && isAllEmpty()) {
+                            mCancelled = true;
+                            mResources.dispose();
+                            downstream.onComplete();
+                            return;
+                        }
+                        break;
+                    }
+                }
+
+                mEmitted = emitted;
+                mIndex = index;
+                missed = addAndGet(-missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+
+        private boolean isAllEmpty() {
+            for (Lane lane : mLanes) {
+                if (!lane.mResults.isEmpty()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void clearAll() {
+            for (Lane lane : mLanes) {
+                lane.mResults.clear();
+                lane.mWaiting.clear();
+            }
+        }
+
+        /**
+         * Полоса: разрешения, группы в ожидании разрешения и готовые результаты
+         */
+        private final class Lane {
+
+            final int mIndex;
+            final Scheduler.Worker mWorker;
+            final AtomicInteger mCredit = new AtomicInteger(mLaneCapacity);
+            final ConcurrentLinkedQueue<GroupSubscriber> mWaiting = new ConcurrentLinkedQueue<>();
+            /** Пишет только воркер полосы, читает цикл выдачи; больше разрешений не положить */
+            final SpscArrayQueue<R> mResults = new SpscArrayQueue<>(mLaneCapacity);
+            private final AtomicInteger mDispatching = new AtomicInteger();
+
+            Lane(int index, Scheduler.Worker worker) {
+                mIndex = index;
+                mWorker = worker;
+            }
+
+            /**
+             * Раздаёт свободные разрешения ожидающим группам
+             */
+            void dispatch() {
+                if (mDispatching.getAndIncrement() != 0) {
+                    return;
+                }
+                int missed = 1;
+                for (;;) {
+                    while (!mCancelled && mCredit.get() > 0) {
+                        GroupSubscriber group = mWaiting.poll();
+                        if (group == null) {
+                            break;
+                        }
+                        if (group.mDone) {
+                            continue;
+                        }
+                        // Разрешения забирает только этот цикл, поэтому проверка выше не устаревает
+                        int credit = mCredit.decrementAndGet();
+                        AtomicMax.update(mMaxQueued, mIndex, mLaneCapacity - credit);
+                        group.requestOne();
+                    }
+                    missed = mDispatching.addAndGet(-missed);
+                    if (missed == 0) {
+                        break;
+                    }
+                }
+            }
+
+            void execute(T value) {
+                mActive.incrementAndGet();
+                mWorker.schedule(() -> {
+                    if (mCancelled) {
+                        return;
+                    }
+                    R result;
+                    try {
+                        result = mProcessor.apply(value);
+                    } catch (Throwable e) {
+                        Exceptions.throwIfFatal(e);
+                        onError(e);
+                        return;
+                    }
+                    mProcessed.incrementAndGet(mIndex);
+                    mResults.offer(result);
+                    release();
+                });
+            }
+        }
+
+        private final class GroupsSubscriber extends AtomicReference<Subscription>
+                implements FlowableSubscriber<GroupedFlowable<K, T>>, Disposable {
+
+            private static final long serialVersionUID = 4915628364046735839L;
+
+            @Override
+            public void onSubscribe(Subscription s) {
+                if (SubscriptionHelper.setOnce(this, s)) {
+                    mResources.add(this);
+                    s.request(Long.MAX_VALUE);
+                }
+            }
+
+            @Override
+            public void onNext(GroupedFlowable<K, T> group) {
+                mActive.incrementAndGet();
+                group.subscribe(new GroupSubscriber(mLanes.get(laneOf(group.getKey()))));
+            }
+
+            @Override
+            public void onError(Throwable e) {
+                LanesCoordinator.this.onError(e);
+            }
+
+            @Override
+            public void onComplete() {
+                mResources.delete(this);
+                release();
+            }
+
+            @Override
+            public void dispose() {
+                SubscriptionHelper.cancel(this);
+            }
+
+            @Override
+            public boolean isDisposed() {
+                return get() == SubscriptionHelper.CANCELLED;
+            }
+        }
+
+        private final class GroupSubscriber extends AtomicReference<Subscription>
+                implements FlowableSubscriber<T>, Disposable {
+
+            private static final long serialVersionUID = -6326217151838127045L;
+
+            private final Lane mLane;
+            /** Группе выдано разрешение, а элемент под него ещё не пришёл */
+            private final AtomicBoolean mPending = new AtomicBoolean();
+            volatile boolean mDone;
+
+            GroupSubscriber(Lane lane) {
+                mLane = lane;
+            }
+
+            @Override
+            public void onSubscribe(Subscription s) {
+                if (SubscriptionHelper.setOnce(this, s)) {
+                    mResources.add(this);
+                    mLane.mWaiting.offer(this);
+                    mLane.dispatch();
+                }
+            }
+
+            void requestOne() {
+                mPending.set(true);
+                get().request(1);
+                // Группа могла завершиться, не увидев выданного разрешения
+                if (mDone && mPending.getAndSet(false)) {
+                    returnCredit();
+                }
+            }
+
+            @Override
+            public void onNext(T value) {
+                mPending.set(false);
+                mLane.execute(value);
+                mLane.mWaiting.offer(this);
+                mLane.dispatch();
+            }
+
+            @Override
+            public void onError(Throwable e) {
+                LanesCoordinator.this.onError(e);
+            }
+
+            @Override
+            public void onComplete() {
+                mDone = true;
+                if (mPending.getAndSet(false)) {
+                    returnCredit();
+                }
+                mResources.delete(this);
+                release();
+            }
+
+            private void returnCredit() {
+                mLane.mCredit.incrementAndGet();
+                mLane.dispatch();
+            }
+
+            @Override
+            public void dispose() {
+                SubscriptionHelper.cancel(this);
+            }
+
+            @Override
+            public boolean isDisposed() {
+                return get() == SubscriptionHelper.CANCELLED;
+            }
+        }
+    }
+}
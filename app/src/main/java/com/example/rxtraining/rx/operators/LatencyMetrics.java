@@ -0,0 +1,71 @@
+package com.example.rxtraining.rx.operators;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Распределение задержек: количество, среднее, максимум и перцентили. Задержки раскладываются
+ * по корзинам степеней двойки наносекунд, поэтому перцентиль - это верхняя граница корзины,
+ * с точностью до двух раз. Потокобезопасен, запись без блокировок.
+ */
+public final class LatencyMetrics {
+
+    private static final int BUCKETS = 64;
+
+    private final AtomicLongArray mBuckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong mCount = new AtomicLong();
+    private final AtomicLong mTotalNanos = new AtomicLong();
+    private final AtomicLong mMaxNanos = new AtomicLong();
+
+    /**
+     * @param latency задержка, отрицательная считается нулевой
+     * @param unit    единица измерения {@code latency}
+     */
+    public void record(long latency, TimeUnit unit) {
+        long nanos = Math.max(0, unit.toNanos(latency));
+        mBuckets.incrementAndGet(BUCKETS - Long.numberOfLeadingZeros(nanos));
+        mCount.incrementAndGet();
+        mTotalNanos.addAndGet(nanos);
+        AtomicMax.update(mMaxNanos, nanos);
+    }
+
+    public long count() {
+        return mCount.get();
+    }
+
+    public long average(TimeUnit unit) {
+        long count = mCount.get();
+        return count == 0 ? 0 : unit.convert(mTotalNanos.get() / count, TimeUnit.NANOSECONDS);
+    }
+
+    public long max(TimeUnit unit) {
+        return unit.convert(mMaxNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param percentile перцентиль от {@code 0} до {@code 100}, например {@code 99}
+     * @param unit       единица измерения результата
+     * @return задержка, которую не превысили {@code percentile} процентов измерений (верхняя
+     * граница корзины, но не больше максимума)
+     */
+    public long percentile(double percentile, TimeUnit unit) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile must be in [0, 100]: " + percentile);
+        }
+        long count = mCount.get();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += mBuckets.get(bucket);
+            if (seen >= rank) {
+                long upperBound = bucket == 0 ? 0 : bucket == BUCKETS - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+                return unit.convert(Math.min(upperBound, mMaxNanos.get()), TimeUnit.NANOSECONDS);
+            }
+        }
+        return max(unit);
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.rxtraining.rx.operators;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.functions.Function;
+import io.reactivex.internal.functions.Functions;
+
+/**
+ * Кэш результатов загрузки по ключу {@code int}, ограниченный по размеру (вытесняется значение,
+ * к которому дольше всего не обращались) и по времени жизни записи.
+ * <p>
+ * Если задан {@code refreshAhead}, то при обращении к записи, до истечения срока жизни которой
+ * осталось меньше {@code refreshAhead}, возвращается закэшированное значение, а в фоне
+ * запускается повторная загрузка. Так часто запрашиваемые ключи не успевают устареть.
+ * <p>
+ * Потокобезопасен.
+ */
+public final class LoadingCache<V> {
+
+    private final Function<Integer, Observable<V>> mLoader;
+    private final int mMaxSize;
+    private final long mTtlMills;
+    private final long mRefreshAheadMills;
+    private final Scheduler mScheduler;
+
+    private final AtomicLong mHits = new AtomicLong();
+    private final AtomicLong mMisses = new AtomicLong();
+    private final AtomicLong mEvictions = new AtomicLong();
+    private final AtomicLong mRefreshes = new AtomicLong();
+
+    /** Порядок доступа, самая давно использованная запись первая. Защищено монитором */
+    private final LinkedHashMap<Integer, Entry<V>> mEntries;
+
+    /**
+     * @param loader       загрузка значения по ключу
+     * @param maxSize      максимальное количество записей
+     * @param ttl          время жизни записи после загрузки
+     * @param refreshAhead за сколько до истечения {@code ttl} обращение запускает фоновую
+     *                     перезагрузку, {@code 0} - не перезагружать
+     * @param unit         единица измерения {@code ttl} и {@code refreshAhead}
+     * @param scheduler    источник текущего времени, на нём же выполняются фоновые
+     *                     перезагрузки
+     */
+    public LoadingCache(Function<Integer, Observable<V>> loader, int maxSize, long ttl, long refreshAhead,
+                        TimeUnit unit, Scheduler scheduler) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0: " + maxSize);
+        }
+        if (ttl <= 0 || refreshAhead < 0 || refreshAhead >= ttl) {
+            throw new IllegalArgumentException("Invalid ttl=" + ttl + " or refreshAhead=" + refreshAhead);
+        }
+        mLoader = loader;
+        mMaxSize = maxSize;
+        mTtlMills = unit.toMillis(ttl);
+        mRefreshAheadMills = unit.toMillis(refreshAhead);
+        mScheduler = scheduler;
+        mEntries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * @param key ключ
+     * @return {@link Observable} который эммитит закэшированное значение, либо загружает его
+     * при подписке, если значения нет или оно устарело
+     */
+    public Observable<V> get(int key) {
+        return Observable.defer(() -> {
+            long now = mScheduler.now(TimeUnit.MILLISECONDS);
+            V value = null;
+            boolean refresh = false;
+            synchronized (mEntries) {
+                Entry<V> entry = mEntries.get(key);
+                if (entry != null) {
+                    if (now - entry.mLoadedAt < mTtlMills) {
+                        value = entry.mValue;
+                        if (mRefreshAheadMills > 0 && !entry.mRefreshing
+                                && now - entry.mLoadedAt >= mTtlMills - mRefreshAheadMills) {
+                            entry.mRefreshing = true;
+                            refresh = true;
+                        }
+                    } else {
+                        mEntries.remove(key);
+                    }
+                }
+            }
+            if (value == null) {
+                mMisses.incrementAndGet();
+                return load(key);
+            }
+            mHits.incrementAndGet();
+            if (refresh) {
+                refresh(key);
+            }
+            return Observable.just(value);
+        });
+    }
+
+    public long hits() {
+        return mHits.get();
+    }
+
+    public long misses() {
+        return mMisses.get();
+    }
+
+    public long evictions() {
+        return mEvictions.get();
+    }
+
+    /**
+     * @return сколько было запущено фоновых перезагрузок
+     */
+    public long refreshes() {
+        return mRefreshes.get();
+    }
+
+    public int size() {
+        synchronized (mEntries) {
+            return mEntries.size();
+        }
+    }
+
+    public void invalidate(int key) {
+        synchronized (mEntries) {
+            mEntries.remove(key);
+        }
+    }
+
+    private Observable<V> load(int key) throws Exception {
+        return mLoader.apply(key)
+                .doOnNext(value -> put(key, value));
+    }
+
+    private void refresh(int key) {
+        mRefreshes.incrementAndGet();
+        // Перезагрузка не задерживает выдачу старого значения вызывающему.
+        // Она могла завершиться ошибкой или без значения: тогда старая запись остаётся,
+        // и следующее обращение снова может запустить перезагрузку
+        Observable.defer(() -> load(key)).subscribeOn(mScheduler).doFinally(() -> {
+            synchronized (mEntries) {
+                Entry<V> entry = mEntries.get(key);
+                if (entry != null) {
+                    entry.mRefreshing = false;
+                }
+            }
+        }).subscribe(Functions.emptyConsumer(), Functions.emptyConsumer());
+    }
+
+    private void put(int key, V value) {
+        long now = mScheduler.now(TimeUnit.MILLISECONDS);
+        synchronized (mEntries) {
+            mEntries.put(key, new Entry<>(value, now));
+            if (mEntries.size() > mMaxSize) {
+                Iterator<Map.Entry<Integer, Entry<V>>> eldest = mEntries.entrySet().iterator();
+                eldest.next();
+                eldest.remove();
+                mEvictions.incrementAndGet();
+            }
+        }
+    }
+
+    private static final class Entry<V> {
+
+        final V mValue;
+        final long mLoadedAt;
+        boolean mRefreshing;
+
+        Entry(V value, long loadedAt) {
+            mValue = value;
+            mLoadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.rxtraining.rx.operators;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
+import io.reactivex.internal.functions.Functions;
+
+/**
+ * Запомненный результат длительного вычисления с временем жизни.
+ * <p>
+ * Пока с момента вычисления прошло меньше {@code ttl}, подписчики получают запомненное значение.
+ * Следующие {@code stale} после этого подписчики всё ещё сразу получают старое значение, а
+ * вычисление запускается в фоне на {@code scheduler} ("stale-while-revalidate"). Если значения
+ * нет или оно старше {@code ttl + stale}, подписчик ждёт нового вычисления.
+ * <p>
+ * Одновременно выполняется не больше одного вычисления: подписчики, пришедшие во время
+ * вычисления, получают его результат. Ошибка вычисления передаётся ожидающим его подписчикам,
+ * а ранее запомненное значение сохраняется. Потокобезопасен.
+ * <p>
+ * {@link #invalidate()} не прерывает выполняющееся вычисление: его подписчики получат результат,
+ * но запомнен он не будет, а новые подписчики запустят новое вычисление. Для этого каждое
+ * вычисление помечается поколением, которое {@link #invalidate()} увеличивает.
+ */
+public final class MemoizedValue<V> {
+
+    private final Callable<V> mLoader;
+    private final long mTtlMills;
+    private final long mStaleMills;
+    private final Scheduler mScheduler;
+
+    private final AtomicLong mHits = new AtomicLong();
+    private final AtomicLong mStaleHits = new AtomicLong();
+    private final AtomicLong mLoads = new AtomicLong();
+
+    /** Защищено монитором */
+    private V mValue;
+    private long mLoadedAt;
+    private Single<V> mLoading;
+    private long mGeneration;
+
+    /**
+     * @param loader    вычисление значения
+     * @param ttl       время, в течение которого значение отдаётся без повторного вычисления
+     * @param stale     сколько после {@code ttl} отдаётся старое значение при фоновом
+     *                  вычислении нового, {@code 0} - не отдавать
+     * @param unit      единица измерения {@code ttl} и {@code stale}
+     * @param scheduler источник текущего времени и планировщик фоновых вычислений
+     */
+    public MemoizedValue(Callable<V> loader, long ttl, long stale, TimeUnit unit, Scheduler scheduler) {
+        if (ttl <= 0 || stale < 0) {
+            throw new IllegalArgumentException("Invalid ttl=" + ttl + " or stale=" + stale);
+        }
+        mLoader = loader;
+        mTtlMills = unit.toMillis(ttl);
+        mStaleMills = unit.toMillis(stale);
+        mScheduler = scheduler;
+    }
+
+    /**
+     * @return {@link Single} который при подписке эммитит запомненное значение, либо
+     * присоединяется к выполняющемуся вычислению, либо запускает новое
+     */
+    public Single<V> get() {
+        return Single.defer(() -> {
+            long now = mScheduler.now(TimeUnit.MILLISECONDS);
+            V value = null;
+            Single<V> loading;
+            boolean refresh = false;
+            synchronized (this) {
+                long age = now - mLoadedAt;
+                if (mValue != null && age < mTtlMills) {
+                    mHits.incrementAndGet();
+                    return Single.just(mValue);
+                }
+                if (mLoading == null) {
+                    mLoading = createLoading();
+                    refresh = true;
+                }
+                loading = mLoading;
+                if (mValue != null && age < mTtlMills + mStaleMills) {
+                    value = mValue;
+                }
+            }
+            if (value == null) {
+                return loading;
+            }
+            mStaleHits.incrementAndGet();
+            if (refresh) {
+                // Ошибка фонового вычисления не мешает отдавать старое значение
+                loading.subscribeOn(mScheduler)
+                        .subscribe(Functions.emptyConsumer(), Functions.emptyConsumer());
+            }
+            return Single.just(value);
+        });
+    }
+
+    /**
+     * @return сколько раз было отдано значение моложе {@code ttl}
+     */
+    public long hits() {
+        return mHits.get();
+    }
+
+    /**
+     * @return сколько раз было отдано старое значение во время фонового вычисления
+     */
+    public long staleHits() {
+        return mStaleHits.get();
+    }
+
+    /**
+     * @return сколько раз запускалось вычисление
+     */
+    public long loads() {
+        return mLoads.get();
+    }
+
+    /**
+     * Сброс значения: следующий подписчик будет ждать нового вычисления, а результат уже
+     * выполняющегося вычисления не будет запомнен
+     */
+    public synchronized void invalidate() {
+        mValue = null;
+        mLoading = null;
+        mGeneration++;
+    }
+
+    /**
+     * Вызывается под монитором
+     */
+    private Single<V> createLoading() {
+        long generation = mGeneration;
+        AtomicReference<Single<V>> loading = new AtomicReference<>();
+        loading.set(Single.fromCallable(() -> {
+            mLoads.incrementAndGet();
+            return mLoader.call();
+        })
+                .doOnSuccess(value -> store(value, generation))
+                .doFinally(() -> {
+                    synchronized (this) {
+                        if (mLoading == loading.get()) {
+                            mLoading = null;
+                        }
+                    }
+                })
+                .cache());
+        return loading.get();
+    }
+
+    private void store(V value, long generation) {
+        long now = mScheduler.now(TimeUnit.MILLISECONDS);
+        synchronized (this) {
+            if (generation != mGeneration) {
+                return;
+            }
+            mValue = value;
+            mLoadedAt = now;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.rxtraining.rx.operators;
+
+import com.example.rxtraining.entity.SearchQuery;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import io.reactivex.functions.BiFunction;
+import io.reactivex.functions.BiPredicate;
+
+/**
+ * Кэш результатов поиска по паре (строка поиска, категория), ограниченный суммарным количеством
+ * закэшированных элементов (вытесняются результаты, к которым дольше всего не обращались).
+ * <p>
+ * Если точного результата нет, но есть результат для префикса строки поиска в той же категории,
+ * новый результат получается фильтрацией закэшированного списка по {@code matcher}, без полного
+ * поиска. Для этого поиск должен возвращать все подходящие элементы, а {@code matcher} -
+ * совпадать с его критерием и быть монотонным: элемент, подходящий под строку, подходит и под
+ * любой её префикс (например {@link String#contains(CharSequence)}).
+ * <p>
+ * Если задана версия данных, по которым идёт поиск, при её изменении кэш сбрасывается, а
+ * результаты, посчитанные по старой версии, не сохраняются.
+ * <p>
+ * Потокобезопасен.
+ */
+public final class PrefixSearchCache {
+
+    private final BiFunction<String, Integer, List<String>> mSearch;
+    private final BiPredicate<String, String> mMatcher;
+    private final int mMaxTotalResults;
+    private final LongSupplier mVersion;
+
+    private final AtomicLong mHits = new AtomicLong();
+    private final AtomicLong mNarrowed = new AtomicLong();
+    private final AtomicLong mMisses = new AtomicLong();
+
+    /** Порядок доступа, самая давно использованная запись первая. Защищено монитором */
+    private final LinkedHashMap<SearchQuery, List<String>> mEntries;
+    /** Суммарный размер списков в {@link #mEntries}. Защищено монитором {@link #mEntries} */
+    private int mTotalResults;
+    /** Версия данных, по которой посчитаны {@link #mEntries}. Защищено монитором {@link #mEntries} */
+    private long mEntriesVersion;
+
+    /**
+     * Кэш поверх неизменяемых данных
+     *
+     * @see #PrefixSearchCache(BiFunction, BiPredicate, int, LongSupplier)
+     */
+    public PrefixSearchCache(BiFunction<String, Integer, List<String>> search,
+                             BiPredicate<String, String> matcher, int maxTotalResults) {
+        this(search, matcher, maxTotalResults, () -> 0L);
+    }
+
+    /**
+     * @param search          полный поиск по строке и категории
+     * @param matcher         критерий поиска: подходит ли элемент (второй аргумент) под строку
+     *                        поиска (первый аргумент)
+     * @param maxTotalResults максимальное суммарное количество элементов во всех закэшированных
+     *                        результатах
+     * @param version         версия данных, по которым идёт поиск, меняется при каждом их изменении
+     */
+    public PrefixSearchCache(BiFunction<String, Integer, List<String>> search,
+                             BiPredicate<String, String> matcher, int maxTotalResults, LongSupplier version) {
+        if (maxTotalResults <= 0) {
+            throw new IllegalArgumentException("maxTotalResults <= 0: " + maxTotalResults);
+        }
+        mSearch = search;
+        mMatcher = matcher;
+        mMaxTotalResults = maxTotalResults;
+        mVersion = version;
+        mEntries = new LinkedHashMap<>(16, 0.75f, true);
+        mEntriesVersion = version.getAsLong();
+    }
+
+    /**
+     * @param searchString строка поиска
+     * @param categoryId   категория
+     * @return результат поиска: закэшированный, отфильтрованный из результата для самого
+     * длинного закэшированного префикса, либо полученный полным поиском
+     */
+    public List<String> search(String searchString, int categoryId) throws Exception {
+        SearchQuery query = new SearchQuery(searchString, categoryId);
+        // Версия читается до поиска: если данные изменятся во время поиска, результат не сохранится
+        long version = mVersion.getAsLong();
+        List<String> prefixResult = null;
+        synchronized (mEntries) {
+            if (version != mEntriesVersion) {
+                mEntries.clear();
+                mTotalResults = 0;
+                mEntriesVersion = version;
+            }
+            List<String> result = mEntries.get(query);
+            if (result != null) {
+                mHits.incrementAndGet();
+                return result;
+            }
+            for (int length = searchString.length() - 1; length >= 0 && prefixResult == null; length--) {
+                prefixResult = mEntries.get(new SearchQuery(searchString.substring(0, length), categoryId));
+            }
+        }
+
+        List<String> result;
+        if (prefixResult != null) {
+            mNarrowed.incrementAndGet();
+            result = new ArrayList<>();
+            for (String item : prefixResult) {
+                if (mMatcher.test(searchString, item)) {
+                    result.add(item);
+                }
+            }
+        } else {
+            mMisses.incrementAndGet();
+            result = new ArrayList<>(mSearch.apply(searchString, categoryId));
+        }
+        result = Collections.unmodifiableList(result);
+        put(query, result, version);
+        return result;
+    }
+
+    /**
+     * @return сколько раз результат был найден в кэше целиком
+     */
+    public long hits() {
+        return mHits.get();
+    }
+
+    /**
+     * @return сколько раз результат был получен фильтрацией результата для префикса
+     */
+    public long narrowed() {
+        return mNarrowed.get();
+    }
+
+    /**
+     * @return сколько раз понадобился полный поиск
+     */
+    public long misses() {
+        return mMisses.get();
+    }
+
+    public int totalResults() {
+        synchronized (mEntries) {
+            return mTotalResults;
+        }
+    }
+
+    /**
+     * Сброс кэша, например после изменения набора элементов, по которым идёт поиск
+     */
+    public void clear() {
+        synchronized (mEntries) {
+            mEntries.clear();
+            mTotalResults = 0;
+        }
+    }
+
+    private void put(SearchQuery query, List<String> result, long version) {
+        if (result.size() > mMaxTotalResults) {
+            return;
+        }
+        synchronized (mEntries) {
+            if (version != mEntriesVersion) {
+                return;
+            }
+            List<String> previous = mEntries.put(query, result);
+            if (previous != null) {
+                mTotalResults -= previous.size();
+            }
+            mTotalResults += result.size();
+            Iterator<Map.Entry<SearchQuery, List<String>>> eldest = mEntries.entrySet().iterator();
+            while (mTotalResults > mMaxTotalResults) {
+                mTotalResults -= eldest.next().getValue().size();
+                eldest.remove();
+            }
+        }
+    }
+}
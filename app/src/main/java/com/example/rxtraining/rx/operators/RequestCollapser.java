@@ -0,0 +1,166 @@
+package com.example.rxtraining.rx.operators;
+
+import com.example.rxtraining.util.IntArrayList;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.Observable;
+import io.reactivex.Scheduler;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Function;
+import io.reactivex.subjects.AsyncSubject;
+
+/**
+ * Объединение одиночных запросов по ключу в пакетные. Ключи, запрошенные в течение окна
+ * {@code window} (но не больше {@code maxBatchSize}), отправляются одним пакетным запросом,
+ * а полученные результаты раздаются подписчикам соответствующих ключей. Повторный запрос ключа,
+ * который уже ждёт отправки, присоединяется к тому же результату.
+ * <p>
+ * Потокобезопасен, один экземпляр может обслуживать любое количество подписчиков.
+ */
+public final class RequestCollapser<T> {
+
+    private final Function<int[], Observable<T>> mBatchRequest;
+    private final Function<T, Integer> mKeySelector;
+    private final int mMaxBatchSize;
+    private final long mWindow;
+    private final TimeUnit mUnit;
+    private final Scheduler mScheduler;
+
+    private final AtomicLong mRequestCount = new AtomicLong();
+    private final AtomicLong mBatchCount = new AtomicLong();
+
+    /* Состояние ниже защищено монитором this */
+    private Batch<T> mPending;
+
+    /**
+     * @param batchRequest пакетный запрос по массиву ключей
+     * @param keySelector  ключ результата, по нему результат находит своих подписчиков
+     * @param maxBatchSize максимальное количество ключей в одном пакете
+     * @param window       сколько ждать новых ключей после первого ключа пакета
+     * @param unit         единица измерения {@code window}
+     * @param scheduler    планировщик таймера окна
+     */
+    public RequestCollapser(Function<int[], Observable<T>> batchRequest, Function<T, Integer> keySelector,
+                            int maxBatchSize, long window, TimeUnit unit, Scheduler scheduler) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize <= 0: " + maxBatchSize);
+        }
+        mBatchRequest = batchRequest;
+        mKeySelector = keySelector;
+        mMaxBatchSize = maxBatchSize;
+        mWindow = window;
+        mUnit = unit;
+        mScheduler = scheduler;
+    }
+
+    /**
+     * @param key ключ запроса
+     * @return {@link Observable} который эммитит результат для ключа {@code key}, либо
+     * завершается без значения, если пакетный запрос не вернул результат для этого ключа. Ключ
+     * попадает в пакет только при подписке
+     */
+    public Observable<T> request(int key) {
+        return Observable.defer(() -> enqueue(key));
+    }
+
+    /**
+     * @return сколько ключей было запрошено
+     */
+    public long requestCount() {
+        return mRequestCount.get();
+    }
+
+    /**
+     * @return сколько пакетных запросов было выполнено
+     */
+    public long batchCount() {
+        return mBatchCount.get();
+    }
+
+    private Observable<T> enqueue(int key) {
+        mRequestCount.incrementAndGet();
+        Batch<T> full = null;
+        AsyncSubject<T> result;
+        synchronized (this) {
+            Batch<T> batch = mPending;
+            if (batch == null) {
+                batch = new Batch<>(mMaxBatchSize);
+                mPending = batch;
+                final Batch<T> scheduled = batch;
+                batch.mTimer = mScheduler.scheduleDirect(() -> flushIfPending(scheduled), mWindow, mUnit);
+            }
+            result = batch.mResults.get(key);
+            if (result == null) {
+                result = AsyncSubject.create();
+                batch.mResults.put(key, result);
+                batch.mKeys.addInt(key);
+                if (batch.mKeys.size() >= mMaxBatchSize) {
+                    mPending = null;
+                    full = batch;
+                }
+            }
+        }
+        if (full != null) {
+            full.mTimer.dispose();
+            execute(full);
+        }
+        return result;
+    }
+
+    private void flushIfPending(Batch<T> batch) {
+        synchronized (this) {
+            if (mPending != batch) {
+                return;
+            }
+            mPending = null;
+        }
+        execute(batch);
+    }
+
+    private void execute(Batch<T> batch) {
+        mBatchCount.incrementAndGet();
+        Map<Integer, AsyncSubject<T>> results = batch.mResults;
+        Observable<T> response;
+        try {
+            response = mBatchRequest.apply(batch.mKeys.toIntArray());
+        } catch (Throwable e) {
+            response = Observable.error(e);
+        }
+        response.subscribe(
+                value -> {
+                    AsyncSubject<T> result = results.get(mKeySelector.apply(value));
+                    if (result != null) {
+                        result.onNext(value);
+                        result.onComplete();
+                    }
+                },
+                error -> {
+                    for (AsyncSubject<T> result : results.values()) {
+                        if (!result.hasComplete()) {
+                            result.onError(error);
+                        }
+                    }
+                },
+                () -> {
+                    for (AsyncSubject<T> result : results.values()) {
+                        result.onComplete();
+                    }
+                });
+    }
+
+    private static final class Batch<T> {
+
+        final IntArrayList mKeys;
+        final Map<Integer, AsyncSubject<T>> mResults;
+        Disposable mTimer;
+
+        Batch(int capacity) {
+            mKeys = new IntArrayList(capacity);
+            mResults = new HashMap<>(capacity * 2);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.rxtraining.rx.operators;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.reactivex.Observable;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Function;
+
+/**
+ * Дедупликация одновременных запросов по ключу ("single flight"). Первый подписчик на ключ
+ * запускает загрузку, остальные, подписавшиеся до её завершения, получают тот же результат без
+ * повторного запроса.
+ * <p>
+ * Запрос удаляется из списка выполняющихся, как только он завершился успешно, с ошибкой, или
+ * от него отписались все подписчики (в этом случае загрузка отменяется). Следующая подписка на
+ * ключ после этого запускает новую загрузку.
+ * <p>
+ * Потокобезопасен.
+ */
+public final class SingleFlight<V> {
+
+    private final Function<Integer, Observable<V>> mLoader;
+    private final ConcurrentHashMap<Integer, Flight> mInFlight = new ConcurrentHashMap<>();
+    private final AtomicLong mStarted = new AtomicLong();
+    private final AtomicLong mJoined = new AtomicLong();
+
+    /**
+     * @param loader загрузка значения по ключу
+     */
+    public SingleFlight(Function<Integer, Observable<V>> loader) {
+        mLoader = loader;
+    }
+
+    /**
+     * @param key ключ
+     * @return {@link Observable} который при подписке присоединяется к уже выполняющейся загрузке
+     * ключа {@code key}, либо запускает новую
+     */
+    public Observable<V> request(int key) {
+        return Observable.defer(() -> {
+            for (;;) {
+                Flight flight = mInFlight.get(key);
+                boolean created = false;
+                if (flight == null) {
+                    Flight newFlight = new Flight(key);
+                    flight = mInFlight.putIfAbsent(key, newFlight);
+                    if (flight == null) {
+                        flight = newFlight;
+                        created = true;
+                    }
+                }
+                Observable<V> joined = flight.join();
+                if (joined != null) {
+                    (created ? mStarted : mJoined).incrementAndGet();
+                    return joined;
+                }
+                // Все подписчики загрузки успели отписаться, и она отменена
+                mInFlight.remove(key, flight);
+            }
+        });
+    }
+
+    /**
+     * @return сколько загрузок было запущено
+     */
+    public long started() {
+        return mStarted.get();
+    }
+
+    /**
+     * @return сколько подписок присоединились к уже выполняющейся загрузке
+     */
+    public long joined() {
+        return mJoined.get();
+    }
+
+    /**
+     * @return количество выполняющихся сейчас загрузок
+     */
+    public int inFlight() {
+        return mInFlight.size();
+    }
+
+    /**
+     * Выполняющаяся загрузка. Результат запоминается ({@code replay(1)}), поэтому подписчик,
+     * присоединившийся между завершением загрузки и удалением её из {@link #mInFlight}, получит
+     * этот же результат без повторной загрузки
+     */
+    private final class Flight {
+
+        private final int mKey;
+        private final Observable<V> mShared;
+        private final AtomicReference<Disposable> mConnection = new AtomicReference<>();
+        /** Количество подписчиков, {@code -1} - все отписались и загрузка отменена */
+        private final AtomicInteger mSubscribers = new AtomicInteger();
+
+        Flight(int key) {
+            mKey = key;
+            mShared = Observable.defer(() -> mLoader.apply(key))
+                    .doFinally(() -> mInFlight.remove(key, this))
+                    .replay(1)
+                    .autoConnect(1, mConnection::set);
+        }
+
+        /**
+         * @return результат загрузки, либо {@code null}, если загрузка уже отменена
+         */
+        Observable<V> join() {
+            for (;;) {
+                int subscribers = mSubscribers.get();
+                if (subscribers < 0) {
+                    return null;
+                }
+                if (mSubscribers.compareAndSet(subscribers, subscribers + 1)) {
+                    return mShared.doOnDispose(this::leave);
+                }
+            }
+        }
+
+        private void leave() {
+            if (mSubscribers.decrementAndGet() == 0 && mSubscribers.compareAndSet(0, -1)) {
+                mInFlight.remove(mKey, this);
+                Disposable connection = mConnection.get();
+                if (connection != null) {
+                    connection.dispose();
+                }
+            }
+        }
+    }
+}
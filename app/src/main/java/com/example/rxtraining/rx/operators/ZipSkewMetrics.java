@@ -0,0 +1,53 @@
+package com.example.rxtraining.rx.operators;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Расхождение двух объединяемых попарно последовательностей: на сколько элементов одна сторона
+ * опережает другую. Каждая сторона считается при получении элемента от источника, поэтому
+ * расхождение показывает, сколько элементов опередившей стороны ждут пары в буферах.
+ * Потокобезопасен.
+ */
+public final class ZipSkewMetrics {
+
+    private final AtomicLong mFirst = new AtomicLong();
+    private final AtomicLong mSecond = new AtomicLong();
+    private final AtomicLong mMaxSkew = new AtomicLong();
+
+    /**
+     * Получен элемент первой последовательности
+     */
+    public void onFirst() {
+        AtomicMax.update(mMaxSkew, mFirst.incrementAndGet() - mSecond.get());
+    }
+
+    /**
+     * Получен элемент второй последовательности
+     */
+    public void onSecond() {
+        AtomicMax.update(mMaxSkew, mSecond.incrementAndGet() - mFirst.get());
+    }
+
+    public long first() {
+        return mFirst.get();
+    }
+
+    public long second() {
+        return mSecond.get();
+    }
+
+    /**
+     * @return текущее расхождение: положительное, если опережает первая последовательность,
+     * отрицательное - если вторая
+     */
+    public long skew() {
+        return mFirst.get() - mSecond.get();
+    }
+
+    /**
+     * @return максимальное расхождение по модулю
+     */
+    public long maxSkew() {
+        return mMaxSkew.get();
+    }
+}
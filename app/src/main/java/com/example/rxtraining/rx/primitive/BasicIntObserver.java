@@ -0,0 +1,72 @@
+package com.example.rxtraining.rx.primitive;
+
+import io.reactivex.disposables.Disposable;
+import io.reactivex.exceptions.Exceptions;
+import io.reactivex.plugins.RxJavaPlugins;
+
+/**
+ * Базовый промежуточный подписчик операторов {@link IntObservable}: хранит подписку на источник,
+ * пробрасывает отписку вверх по цепочке и гарантирует не более одного терминального события.
+ */
+abstract class BasicIntObserver implements IntObserver, Disposable {
+
+    final IntObserver mDownstream;
+    Disposable mUpstream;
+    boolean mDone;
+
+    BasicIntObserver(IntObserver downstream) {
+        mDownstream = downstream;
+    }
+
+    @Override
+    public void onSubscribe(Disposable d) {
+        mUpstream = d;
+        mDownstream.onSubscribe(this);
+    }
+
+    @Override
+    public void onError(Throwable e) {
+        if (mDone) {
+            RxJavaPlugins.onError(e);
+            return;
+        }
+        mDone = true;
+        mDownstream.onError(e);
+    }
+
+    @Override
+    public void onComplete() {
+        if (mDone) {
+            return;
+        }
+        mDone = true;
+        mDownstream.onComplete();
+    }
+
+    @Override
+    public void dispose() {
+        mUpstream.dispose();
+    }
+
+    @Override
+    public boolean isDisposed() {
+        return mUpstream.isDisposed();
+    }
+
+    /**
+     * Обработка исключения из пользовательской функции: отписка от источника и ошибка вниз
+     */
+    final void fail(Throwable e) {
+        Exceptions.throwIfFatal(e);
+        mUpstream.dispose();
+        onError(e);
+    }
+
+    /**
+     * Досрочное завершение: отписка от источника и {@code onComplete} вниз
+     */
+    final void completeEarly() {
+        mUpstream.dispose();
+        onComplete();
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.rxtraining.rx.primitive;
+
+import com.example.rxtraining.util.IntChunk;
+import com.example.rxtraining.util.IntChunkPool;
+import com.example.rxtraining.util.IntChunkWriter;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.reactivex.ObservableOperator;
+import io.reactivex.Observer;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.internal.disposables.DisposableHelper;
+
+/**
+ * Нарезка последовательности чисел на блоки {@link IntChunk} из {@link IntChunkPool}. Блок
+ * эммитится, когда заполнен, последний неполный блок - при завершении источника. Подписчик
+ * обязан вернуть каждый полученный блок в пул. Блок, который заполнялся в момент ошибки или
+ * отписки, возвращается в пул оператором.
+ */
+public final class IntChunkOperator implements ObservableOperator<IntChunk, Integer> {
+
+    private final IntChunkPool mPool;
+
+    public IntChunkOperator(IntChunkPool pool) {
+        mPool = pool;
+    }
+
+    @Override
+    public Observer<? super Integer> apply(Observer<? super IntChunk> observer) {
+        return new ChunkObserver(observer, mPool);
+    }
+
+    private static final class ChunkObserver implements Observer<Integer>, Disposable {
+
+        /** Метка в {@link #mCurrent} после отписки */
+        private static final Object DISPOSED = new Object();
+
+        private final Observer<? super IntChunk> mDownstream;
+        private Disposable mUpstream;
+        /**
+         * Писатель с заполняемым блоком. Кто забрал писателя отсюда, тот им и владеет: onNext
+         * забирает его на время добавления значения, а отписка из другого потока возвращает в
+         * пул только блок, который в этот момент не заполняется
+         */
+        private final AtomicReference<Object> mCurrent;
+
+        ChunkObserver(Observer<? super IntChunk> downstream, IntChunkPool pool) {
+            mDownstream = downstream;
+            mCurrent = new AtomicReference<>(new IntChunkWriter(pool));
+        }
+
+        @Override
+        public void onSubscribe(Disposable d) {
+            if (DisposableHelper.validate(mUpstream, d)) {
+                mUpstream = d;
+                mDownstream.onSubscribe(this);
+            }
+        }
+
+        @Override
+        public void onNext(Integer value) {
+            Object current = mCurrent.getAndSet(null);
+            if (current == DISPOSED) {
+                mCurrent.set(DISPOSED);
+                return;
+            }
+            IntChunkWriter writer = (IntChunkWriter) current;
+            IntChunk full = writer.write(value);
+            if (full != null) {
+                mDownstream.onNext(full);
+            }
+            if (!mCurrent.compareAndSet(null, writer)) {
+                // Отписка пришла, пока блок заполнялся
+                writer.discard();
+            }
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            releaseCurrent();
+            mDownstream.onError(e);
+        }
+
+        @Override
+        public void onComplete() {
+            Object current = mCurrent.getAndSet(null);
+            if (current == DISPOSED) {
+                mCurrent.set(DISPOSED);
+            } else if (current != null) {
+                IntChunk partial = ((IntChunkWriter) current).flush();
+                if (partial != null) {
+                    mDownstream.onNext(partial);
+                }
+            }
+            mDownstream.onComplete();
+        }
+
+        @Override
+        public void dispose() {
+            mUpstream.dispose();
+            Object current = mCurrent.getAndSet(DISPOSED);
+            if (current != null && current != DISPOSED) {
+                ((IntChunkWriter) current).discard();
+            }
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return mUpstream.isDisposed();
+        }
+
+        private void releaseCurrent() {
+            Object current = mCurrent.getAndSet(null);
+            if (current == DISPOSED) {
+                mCurrent.set(DISPOSED);
+            } else if (current != null) {
+                ((IntChunkWriter) current).discard();
+            }
+        }
+    }
+}
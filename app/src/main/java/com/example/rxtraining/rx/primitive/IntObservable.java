@@ -0,0 +1,317 @@
+package com.example.rxtraining.rx.primitive;
+
+import com.example.rxtraining.util.IntArrayList;
+
+import java.util.List;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntPredicate;
+import java.util.function.IntUnaryOperator;
+
+import io.reactivex.Maybe;
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.Single;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.exceptions.Exceptions;
+import io.reactivex.internal.functions.ObjectHelper;
+
+/**
+ * Последовательность примитивных {@code int}. Аналог {@code Observable<Integer>} для горячих
+ * числовых цепочек: операторы передают значения без упаковки в {@link Integer}, поэтому
+ * обработка элемента не создаёт объектов.
+ * <p>
+ * С обычными последовательностями связывается через {@link #fromObservable(ObservableSource)} и
+ * {@link #toObservable()}.
+ */
+public abstract class IntObservable {
+
+    /* Источники */
+
+    public static IntObservable fromArray(int... values) {
+        ObjectHelper.requireNonNull(values, "values is null");
+        return new IntObservableFromArray(values);
+    }
+
+    public static IntObservable range(int start, int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count < 0: " + count);
+        }
+        return new IntObservableRange(start, count);
+    }
+
+    /**
+     * @param source последовательность упакованных чисел, распаковываются один раз на входе
+     */
+    public static IntObservable fromObservable(ObservableSource<Integer> source) {
+        ObjectHelper.requireNonNull(source, "source is null");
+        return new IntObservableFromSource(source);
+    }
+
+    /* Операторы */
+
+    public final IntObservable filter(IntPredicate predicate) {
+        ObjectHelper.requireNonNull(predicate, "predicate is null");
+        return new IntObservableFilter(this, predicate);
+    }
+
+    public final IntObservable map(IntUnaryOperator mapper) {
+        ObjectHelper.requireNonNull(mapper, "mapper is null");
+        return new IntObservableMap(this, mapper);
+    }
+
+    public final IntObservable distinct() {
+        return new IntObservableDistinct(this);
+    }
+
+    public final IntObservable distinctUntilChanged() {
+        return new IntObservableDistinctUntilChanged(this);
+    }
+
+    public final IntObservable take(long count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count < 0: " + count);
+        }
+        return new IntObservableTake(this, count);
+    }
+
+    public final IntObservable skip(long count) {
+        if (count <= 0) {
+            return this;
+        }
+        return new IntObservableSkip(this, count);
+    }
+
+    /**
+     * @param count количество последних значений, хранятся в кольцевом буфере размера
+     *              {@code count}
+     */
+    public final IntObservable takeLast(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count < 0: " + count);
+        }
+        return new IntObservableTakeLast(this, count);
+    }
+
+    public final IntObservable zipWith(IntObservable other, IntBinaryOperator zipper) {
+        ObjectHelper.requireNonNull(other, "other is null");
+        ObjectHelper.requireNonNull(zipper, "zipper is null");
+        return new IntObservableZip(this, other, zipper);
+    }
+
+    /* Терминальные операторы */
+
+    public final Single<Integer> reduce(int seed, IntBinaryOperator reducer) {
+        ObjectHelper.requireNonNull(reducer, "reducer is null");
+        return Single.create(emitter -> subscribe(new TerminalIntObserver() {
+
+            private int mAccumulator = seed;
+
+            @Override
+            void onStart() {
+                emitter.setDisposable(this);
+            }
+
+            @Override
+            void accept(int value) {
+                mAccumulator = reducer.applyAsInt(mAccumulator, value);
+            }
+
+            @Override
+            void fail(Throwable e) {
+                emitter.onError(e);
+            }
+
+            @Override
+            void complete() {
+                emitter.onSuccess(mAccumulator);
+            }
+        }));
+    }
+
+    public final Maybe<Integer> reduce(IntBinaryOperator reducer) {
+        ObjectHelper.requireNonNull(reducer, "reducer is null");
+        return Maybe.create(emitter -> subscribe(new TerminalIntObserver() {
+
+            private boolean mHasValue;
+            private int mAccumulator;
+
+            @Override
+            void onStart() {
+                emitter.setDisposable(this);
+            }
+
+            @Override
+            void accept(int value) {
+                if (mHasValue) {
+                    mAccumulator = reducer.applyAsInt(mAccumulator, value);
+                } else {
+                    mHasValue = true;
+                    mAccumulator = value;
+                }
+            }
+
+            @Override
+            void fail(Throwable e) {
+                emitter.onError(e);
+            }
+
+            @Override
+            void complete() {
+                if (mHasValue) {
+                    emitter.onSuccess(mAccumulator);
+                } else {
+                    emitter.onComplete();
+                }
+            }
+        }));
+    }
+
+    /**
+     * @return {@link Single} который эммитит {@code true} если все значения удовлетворяют
+     * {@code predicate}, при первом несоответствии подписка на источник отменяется
+     */
+    public final Single<Boolean> all(IntPredicate predicate) {
+        ObjectHelper.requireNonNull(predicate, "predicate is null");
+        return Single.create(emitter -> subscribe(new TerminalIntObserver() {
+
+            @Override
+            void onStart() {
+                emitter.setDisposable(this);
+            }
+
+            @Override
+            void accept(int value) {
+                if (!predicate.test(value)) {
+                    finish();
+                    emitter.onSuccess(false);
+                }
+            }
+
+            @Override
+            void fail(Throwable e) {
+                emitter.onError(e);
+            }
+
+            @Override
+            void complete() {
+                emitter.onSuccess(true);
+            }
+        }));
+    }
+
+    /**
+     * @return {@link Single} который эммитит список всех значений, хранящихся в массиве
+     * {@code int} ({@link IntArrayList})
+     */
+    public final Single<List<Integer>> toList() {
+        return Single.create(emitter -> subscribe(new TerminalIntObserver() {
+
+            private final IntArrayList mValues = new IntArrayList();
+
+            @Override
+            void onStart() {
+                emitter.setDisposable(this);
+            }
+
+            @Override
+            void accept(int value) {
+                mValues.addInt(value);
+            }
+
+            @Override
+            void fail(Throwable e) {
+                emitter.onError(e);
+            }
+
+            @Override
+            void complete() {
+                emitter.onSuccess(mValues);
+            }
+        }));
+    }
+
+    /* Подписка */
+
+    /**
+     * @return {@code Observable<Integer>}, который эммитит значения этой последовательности
+     */
+    public final Observable<Integer> toObservable() {
+        return new ObservableFromIntObservable(this);
+    }
+
+    public final void subscribe(IntObserver observer) {
+        ObjectHelper.requireNonNull(observer, "observer is null");
+        subscribeActual(observer);
+    }
+
+    protected abstract void subscribeActual(IntObserver observer);
+
+    /**
+     * Основа терминальных операторов: исключения из {@link #accept(int)} отменяют подписку и
+     * превращаются в ошибку, после {@link #finish()} события источника игнорируются
+     */
+    private abstract static class TerminalIntObserver implements IntObserver, Disposable {
+
+        private Disposable mUpstream;
+        private boolean mDone;
+
+        abstract void onStart();
+
+        abstract void accept(int value);
+
+        abstract void fail(Throwable e);
+
+        abstract void complete();
+
+        final void finish() {
+            mDone = true;
+            mUpstream.dispose();
+        }
+
+        @Override
+        public final void onSubscribe(Disposable d) {
+            mUpstream = d;
+            onStart();
+        }
+
+        @Override
+        public final void onNext(int value) {
+            if (mDone) {
+                return;
+            }
+            try {
+                accept(value);
+            } catch (Throwable e) {
+                Exceptions.throwIfFatal(e);
+                finish();
+                fail(e);
+            }
+        }
+
+        @Override
+        public final void onError(Throwable e) {
+            if (!mDone) {
+                mDone = true;
+                fail(e);
+            }
+        }
+
+        @Override
+        public final void onComplete() {
+            if (!mDone) {
+                mDone = true;
+                complete();
+            }
+        }
+
+        @Override
+        public final void dispose() {
+            mUpstream.dispose();
+        }
+
+        @Override
+        public final boolean isDisposed() {
+            return mUpstream.isDisposed();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.rxtraining.rx.primitive;
+
+import com.example.rxtraining.util.IntHashSet;
+
+final class IntObservableDistinct extends IntObservable {
+
+    private final IntObservable mSource;
+
+    IntObservableDistinct(IntObservable source) {
+        mSource = source;
+    }
+
+    @Override
+    protected void subscribeActual(IntObserver observer) {
+        mSource.subscribe(new DistinctObserver(observer));
+    }
+
+    private static final class DistinctObserver extends BasicIntObserver {
+
+        private final IntHashSet mSeen = new IntHashSet();
+
+        DistinctObserver(IntObserver downstream) {
+            super(downstream);
+        }
+
+        @Override
+        public void onNext(int value) {
+            if (!mDone && mSeen.add(value)) {
+                mDownstream.onNext(value);
+            }
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            mSeen.clear();
+            super.onError(e);
+        }
+
+        @Override
+        public void onComplete() {
+            mSeen.clear();
+            super.onComplete();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.rxtraining.rx.primitive;
+
+final class IntObservableDistinctUntilChanged extends IntObservable {
+
+    private final IntObservable mSource;
+
+    IntObservableDistinctUntilChanged(IntObservable source) {
+        mSource = source;
+    }
+
+    @Override
+    protected void subscribeActual(IntObserver observer) {
+        mSource.subscribe(new DistinctUntilChangedObserver(observer));
+    }
+
+    private static final class DistinctUntilChangedObserver extends BasicIntObserver {
+
+        private boolean mHasLast;
+        private int mLast;
+
+        DistinctUntilChangedObserver(IntObserver downstream) {
+            super(downstream);
+        }
+
+        @Override
+        public void onNext(int value) {
+            if (mDone || (mHasLast && mLast == value)) {
+                return;
+            }
+            mHasLast = true;
+            mLast = value;
+            mDownstream.onNext(value);
+        }
+    }
+}
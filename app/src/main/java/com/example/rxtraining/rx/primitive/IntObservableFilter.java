@@ -0,0 +1,46 @@
+package com.example.rxtraining.rx.primitive;
+
+import java.util.function.IntPredicate;
+
+final class IntObservableFilter extends IntObservable {
+
+    private final IntObservable mSource;
+    private final IntPredicate mPredicate;
+
+    IntObservableFilter(IntObservable source, IntPredicate predicate) {
+        mSource = source;
+        mPredicate = predicate;
+    }
+
+    @Override
+    protected void subscribeActual(IntObserver observer) {
+        mSource.subscribe(new FilterObserver(observer, mPredicate));
+    }
+
+    private static final class FilterObserver extends BasicIntObserver {
+
+        private final IntPredicate mPredicate;
+
+        FilterObserver(IntObserver downstream, IntPredicate predicate) {
+            super(downstream);
+            mPredicate = predicate;
+        }
+
+        @Override
+        public void onNext(int value) {
+            if (mDone) {
+                return;
+            }
+            boolean accepted;
+            try {
+                accepted = mPredicate.test(value);
+            } catch (Throwable e) {
+                fail(e);
+                return;
+            }
+            if (accepted) {
+                mDownstream.onNext(value);
+            }
+        }
+    }
+}
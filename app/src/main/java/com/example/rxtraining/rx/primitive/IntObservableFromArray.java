@@ -0,0 +1,28 @@
+package com.example.rxtraining.rx.primitive;
+
+import io.reactivex.disposables.Disposable;
+import io.reactivex.disposables.Disposables;
+
+final class IntObservableFromArray extends IntObservable {
+
+    private final int[] mValues;
+
+    IntObservableFromArray(int[] values) {
+        mValues = values;
+    }
+
+    @Override
+    protected void subscribeActual(IntObserver observer) {
+        Disposable disposable = Disposables.empty();
+        observer.onSubscribe(disposable);
+        for (int value : mValues) {
+            if (disposable.isDisposed()) {
+                return;
+            }
+            observer.onNext(value);
+        }
+        if (!disposable.isDisposed()) {
+            observer.onComplete();
+        }
+    }
+}
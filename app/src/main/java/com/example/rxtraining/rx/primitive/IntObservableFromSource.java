@@ -0,0 +1,51 @@
+package com.example.rxtraining.rx.primitive;
+
+import io.reactivex.ObservableSource;
+import io.reactivex.Observer;
+import io.reactivex.disposables.Disposable;
+
+/**
+ * Мост из {@code ObservableSource<Integer>}: значения распаковываются один раз на входе
+ */
+final class IntObservableFromSource extends IntObservable {
+
+    private final ObservableSource<Integer> mSource;
+
+    IntObservableFromSource(ObservableSource<Integer> source) {
+        mSource = source;
+    }
+
+    @Override
+    protected void subscribeActual(IntObserver observer) {
+        mSource.subscribe(new UnboxingObserver(observer));
+    }
+
+    private static final class UnboxingObserver implements Observer<Integer> {
+
+        private final IntObserver mDownstream;
+
+        UnboxingObserver(IntObserver downstream) {
+            mDownstream = downstream;
+        }
+
+        @Override
+        public void onSubscribe(Disposable d) {
+            mDownstream.onSubscribe(d);
+        }
+
+        @Override
+        public void onNext(Integer value) {
+            mDownstream.onNext(value);
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            mDownstream.onError(e);
+        }
+
+        @Override
+        public void onComplete() {
+            mDownstream.onComplete();
+        }
+    }
+}
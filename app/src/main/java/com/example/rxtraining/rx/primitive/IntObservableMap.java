@@ -0,0 +1,44 @@
+package com.example.rxtraining.rx.primitive;
+
+import java.util.function.IntUnaryOperator;
+
+final class IntObservableMap extends IntObservable {
+
+    private final IntObservable mSource;
+    private final IntUnaryOperator mMapper;
+
+    IntObservableMap(IntObservable source, IntUnaryOperator mapper) {
+        mSource = source;
+        mMapper = mapper;
+    }
+
+    @Override
+    protected void subscribeActual(IntObserver observer) {
+        mSource.subscribe(new MapObserver(observer, mMapper));
+    }
+
+    private static final class MapObserver extends BasicIntObserver {
+
+        private final IntUnaryOperator mMapper;
+
+        MapObserver(IntObserver downstream, IntUnaryOperator mapper) {
+            super(downstream);
+            mMapper = mapper;
+        }
+
+        @Override
+        public void onNext(int value) {
+            if (mDone) {
+                return;
+            }
+            int result;
+            try {
+                result = mMapper.applyAsInt(value);
+            } catch (Throwable e) {
+                fail(e);
+                return;
+            }
+            mDownstream.onNext(result);
+        }
+    }
+}
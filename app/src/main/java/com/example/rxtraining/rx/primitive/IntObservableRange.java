@@ -0,0 +1,30 @@
+package com.example.rxtraining.rx.primitive;
+
+import io.reactivex.disposables.Disposable;
+import io.reactivex.disposables.Disposables;
+
+final class IntObservableRange extends IntObservable {
+
+    private final int mStart;
+    private final long mEnd;
+
+    IntObservableRange(int start, int count) {
+        mStart = start;
+        mEnd = (long) start + count;
+    }
+
+    @Override
+    protected void subscribeActual(IntObserver observer) {
+        Disposable disposable = Disposables.empty();
+        observer.onSubscribe(disposable);
+        for (long value = mStart; value < mEnd; value++) {
+            if (disposable.isDisposed()) {
+                return;
+            }
+            observer.onNext((int) value);
+        }
+        if (!disposable.isDisposed()) {
+            observer.onComplete();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.rxtraining.rx.primitive;
+
+final class IntObservableSkip extends IntObservable {
+
+    private final IntObservable mSource;
+    private final long mCount;
+
+    IntObservableSkip(IntObservable source, long count) {
+        mSource = source;
+        mCount = count;
+    }
+
+    @Override
+    protected void subscribeActual(IntObserver observer) {
+        mSource.subscribe(new SkipObserver(observer, mCount));
+    }
+
+    private static final class SkipObserver extends BasicIntObserver {
+
+        private long mRemaining;
+
+        SkipObserver(IntObserver downstream, long count) {
+            super(downstream);
+            mRemaining = count;
+        }
+
+        @Override
+        public void onNext(int value) {
+            if (mDone) {
+                return;
+            }
+            if (mRemaining > 0) {
+                mRemaining--;
+            } else {
+                mDownstream.onNext(value);
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.rxtraining.rx.primitive;
+
+import io.reactivex.disposables.Disposable;
+
+final class IntObservableTake extends IntObservable {
+
+    private final IntObservable mSource;
+    private final long mCount;
+
+    IntObservableTake(IntObservable source, long count) {
+        mSource = source;
+        mCount = count;
+    }
+
+    @Override
+    protected void subscribeActual(IntObserver observer) {
+        mSource.subscribe(new TakeObserver(observer, mCount));
+    }
+
+    private static final class TakeObserver extends BasicIntObserver {
+
+        private long mRemaining;
+
+        TakeObserver(IntObserver downstream, long count) {
+            super(downstream);
+            mRemaining = count;
+        }
+
+        @Override
+        public void onSubscribe(Disposable d) {
+            super.onSubscribe(d);
+            if (mRemaining == 0) {
+                completeEarly();
+            }
+        }
+
+        @Override
+        public void onNext(int value) {
+            if (mDone) {
+                return;
+            }
+            mDownstream.onNext(value);
+            if (--mRemaining == 0) {
+                completeEarly();
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.rxtraining.rx.primitive;
+
+import com.example.rxtraining.util.IntRingBuffer;
+
+final class IntObservableTakeLast extends IntObservable {
+
+    private final IntObservable mSource;
+    private final int mCount;
+
+    IntObservableTakeLast(IntObservable source, int count) {
+        mSource = source;
+        mCount = count;
+    }
+
+    @Override
+    protected void subscribeActual(IntObserver observer) {
+        mSource.subscribe(new TakeLastObserver(observer, mCount));
+    }
+
+    private static final class TakeLastObserver extends BasicIntObserver {
+
+        private final IntRingBuffer mBuffer;
+
+        TakeLastObserver(IntObserver downstream, int count) {
+            super(downstream);
+            mBuffer = new IntRingBuffer(count);
+        }
+
+        @Override
+        public void onNext(int value) {
+            if (!mDone) {
+                mBuffer.add(value);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            if (mDone) {
+                return;
+            }
+            for (int i = 0, size = mBuffer.size(); i < size; i++) {
+                if (isDisposed()) {
+                    return;
+                }
+                mDownstream.onNext(mBuffer.get(i));
+            }
+            super.onComplete();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.rxtraining.rx.primitive;
+
+import com.example.rxtraining.util.IntArrayQueue;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntBinaryOperator;
+
+import io.reactivex.disposables.Disposable;
+import io.reactivex.exceptions.Exceptions;
+import io.reactivex.internal.disposables.DisposableHelper;
+import io.reactivex.plugins.RxJavaPlugins;
+
+/**
+ * Попарное объединение двух последовательностей. Опередившая сторона буферизуется в
+ * {@link IntArrayQueue}, поэтому упаковки значений не происходит.
+ */
+final class IntObservableZip extends IntObservable {
+
+    private final IntObservable mFirst;
+    private final IntObservable mSecond;
+    private final IntBinaryOperator mZipper;
+
+    IntObservableZip(IntObservable first, IntObservable second, IntBinaryOperator zipper) {
+        mFirst = first;
+        mSecond = second;
+        mZipper = zipper;
+    }
+
+    @Override
+    protected void subscribeActual(IntObserver observer) {
+        ZipCoordinator coordinator = new ZipCoordinator(observer, mZipper);
+        observer.onSubscribe(coordinator);
+        mFirst.subscribe(coordinator.mFirst);
+        mSecond.subscribe(coordinator.mSecond);
+    }
+
+    private static final class ZipCoordinator implements Disposable {
+
+        private final IntObserver mDownstream;
+        private final IntBinaryOperator mZipper;
+        private final ZipObserver mFirst = new ZipObserver(this);
+        private final ZipObserver mSecond = new ZipObserver(this);
+
+        private volatile boolean mDisposed;
+        private boolean mDone;
+
+        ZipCoordinator(IntObserver downstream, IntBinaryOperator zipper) {
+            mDownstream = downstream;
+            mZipper = zipper;
+        }
+
+        @Override
+        public void dispose() {
+            if (!mDisposed) {
+                mDisposed = true;
+                mFirst.cancel();
+                mSecond.cancel();
+            }
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return mDisposed;
+        }
+
+        synchronized void drain() {
+            if (mDone) {
+                return;
+            }
+            IntArrayQueue first = mFirst.mQueue;
+            IntArrayQueue second = mSecond.mQueue;
+            while (!first.isEmpty() && !second.isEmpty()) {
+                if (mDisposed) {
+                    return;
+                }
+                int result;
+                try {
+                    result = mZipper.applyAsInt(first.poll(), second.poll());
+                } catch (Throwable e) {
+                    Exceptions.throwIfFatal(e);
+                    error(e);
+                    return;
+                }
+                mDownstream.onNext(result);
+            }
+            if ((mFirst.mCompleted && first.isEmpty()) || (mSecond.mCompleted && second.isEmpty())) {
+                mDone = true;
+                dispose();
+                mDownstream.onComplete();
+            }
+        }
+
+        synchronized void error(Throwable e) {
+            if (mDone) {
+                RxJavaPlugins.onError(e);
+                return;
+            }
+            mDone = true;
+            dispose();
+            mDownstream.onError(e);
+        }
+    }
+
+    private static final class ZipObserver implements IntObserver {
+
+        private final ZipCoordinator mParent;
+        private final AtomicReference<Disposable> mUpstream = new AtomicReference<>();
+        /** Доступ только под монитором {@link ZipCoordinator} */
+        final IntArrayQueue mQueue = new IntArrayQueue();
+        boolean mCompleted;
+
+        ZipObserver(ZipCoordinator parent) {
+            mParent = parent;
+        }
+
+        @Override
+        public void onSubscribe(Disposable d) {
+            DisposableHelper.setOnce(mUpstream, d);
+        }
+
+        @Override
+        public void onNext(int value) {
+            synchronized (mParent) {
+                mQueue.offer(value);
+            }
+            mParent.drain();
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            mParent.error(e);
+        }
+
+        @Override
+        public void onComplete() {
+            synchronized (mParent) {
+                mCompleted = true;
+            }
+            mParent.drain();
+        }
+
+        void cancel() {
+            DisposableHelper.dispose(mUpstream);
+        }
+    }
+}
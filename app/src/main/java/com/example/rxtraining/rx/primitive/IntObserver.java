@@ -0,0 +1,17 @@
+package com.example.rxtraining.rx.primitive;
+
+import io.reactivex.disposables.Disposable;
+
+/**
+ * Аналог {@link io.reactivex.Observer} для последовательности примитивных {@code int}
+ */
+public interface IntObserver {
+
+    void onSubscribe(Disposable d);
+
+    void onNext(int value);
+
+    void onError(Throwable e);
+
+    void onComplete();
+}
@@ -0,0 +1,331 @@
+package com.example.rxtraining.rx.primitive;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.reactivex.Observable;
+import io.reactivex.ObservableSource;
+import io.reactivex.Observer;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.internal.disposables.DisposableHelper;
+import io.reactivex.internal.queue.SpscLinkedArrayQueue;
+import io.reactivex.plugins.RxJavaPlugins;
+
+/**
+ * Попарное суммирование двух последовательностей блоками. Каждая сторона накапливает свои
+ * значения в массив {@code int} размера {@code blockSize} и передаёт его на суммирование
+ * целиком, когда он заполнен или сторона завершилась. Суммирование блоков - простой цикл по
+ * массивам, который JIT может векторизовать, а результат эммитится блоками {@code int[]}.
+ * <p>
+ * Как и zip: i-й элемент результата равен сумме i-х элементов источников, ошибка любого
+ * источника сразу передаётся подписчику, а результат завершается, когда завершилась одна из
+ * сторон и все её значения просуммированы. Завершившаяся сторона забирает на суммирование и
+ * недособранный блок второй стороны, поэтому он не остаётся ждать заполнения; дальше вторая
+ * сторона передаёт значения по одному, без накопления блока.
+ * <p>
+ * Блок заполняется потоком своего источника без блокировок: блок ставится в очередь стороны
+ * (SPSC, пишет только источник) при создании, а к суммированию допускается, когда закрыт -
+ * заполнен самим источником или забран завершившейся стороной атомарной заменой его размера.
+ * Если закрытие другой стороной опередило запись значения, источник начинает с этим значением
+ * новый блок. Суммирует цикл выдачи, который выполняет один поток за раз.
+ */
+public final class ObservableBlockSum extends Observable<int[]> {
+
+    private final ObservableSource<Integer> mFirst;
+    private final ObservableSource<Integer> mSecond;
+    private final int mBlockSize;
+
+    public ObservableBlockSum(ObservableSource<Integer> first, ObservableSource<Integer> second, int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("blockSize <= 0: " + blockSize);
+        }
+        mFirst = first;
+        mSecond = second;
+        mBlockSize = blockSize;
+    }
+
+    @Override
+    protected void subscribeActual(Observer<? super int[]> observer) {
+        SumCoordinator coordinator = new SumCoordinator(observer, mBlockSize);
+        observer.onSubscribe(coordinator);
+        mFirst.subscribe(coordinator.mFirst);
+        mSecond.subscribe(coordinator.mSecond);
+    }
+
+    private static final class SumCoordinator extends AtomicInteger implements Disposable {
+
+        private static final long serialVersionUID = -3583471946526375291L;
+
+        private final Observer<? super int[]> mDownstream;
+        private final BlockObserver mFirst;
+        private final BlockObserver mSecond;
+        private final AtomicReference<Throwable> mError = new AtomicReference<>();
+
+        private volatile boolean mDisposed;
+        /** Одна из сторон завершилась, вторая больше не накапливает блоки */
+        volatile boolean mAnyCompleted;
+        /** Доступ только из цикла {@link #drain()} */
+        private boolean mDone;
+
+        SumCoordinator(Observer<? super int[]> downstream, int blockSize) {
+            mDownstream = downstream;
+            mFirst = new BlockObserver(this, blockSize);
+            mSecond = new BlockObserver(this, blockSize);
+        }
+
+        @Override
+        public void dispose() {
+            if (!mDisposed) {
+                mDisposed = true;
+                mFirst.cancel();
+                mSecond.cancel();
+                if (getAndIncrement() == 0) {
+                    clearAll();
+                }
+            }
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return mDisposed;
+        }
+
+        void drain() {
+            if (getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            BlockObserver first = mFirst;
+            BlockObserver second = mSecond;
+            for (;;) {
+                if (!mDone) {
+                    drainLoop(first, second);
+                }
+                missed = addAndGet(-missed);
+                if (missed == 0) {
+                    break;
+                }
+            }
+        }
+
+        private void drainLoop(BlockObserver first, BlockObserver second) {
+            for (;;) {
+                if (mDisposed) {
+                    clearAll();
+                    return;
+                }
+                Throwable error = mError.get();
+                if (error != null) {
+                    finish();
+                    mDownstream.onError(error);
+                    return;
+                }
+                // Завершение читается до очередей: все блоки завершившейся стороны уже закрыты
+                boolean firstCompleted = first.mCompleted;
+                boolean secondCompleted = second.mCompleted;
+                Block a = first.mBlocks.peek();
+                Block b = second.mBlocks.peek();
+                int aSize = a != null ? a.sealedSize() : -1;
+                int bSize = b != null ? b.sealedSize() : -1;
+                if (aSize < 0 || bSize < 0) {
+                    if ((firstCompleted && a == null) || (secondCompleted && b == null)) {
+                        finish();
+                        mDownstream.onComplete();
+                    }
+                    return;
+                }
+
+                int aOffset = first.mOffset;
+                int bOffset = second.mOffset;
+                int length = Math.min(aSize - aOffset, bSize - bOffset);
+                int[] sum;
+                if (aOffset == 0 && bOffset == 0 && length == a.mValues.length) {
+                    // Заполненный блок первой стороны больше не нужен, суммируем в него же
+                    sum = a.mValues;
+                    int[] values = b.mValues;
+                    for (int i = 0; i < length; i++) {
+                        sum[i] += values[i];
+                    }
+                } else {
+                    sum = new int[length];
+                    int[] aValues = a.mValues;
+                    int[] bValues = b.mValues;
+                    for (int i = 0; i < length; i++) {
+                        sum[i] = aValues[aOffset + i] + bValues[bOffset + i];
+                    }
+                }
+                first.advance(length, aSize);
+                second.advance(length, bSize);
+                mDownstream.onNext(sum);
+            }
+        }
+
+        /**
+         * Сторона {@code side} завершилась: её недособранный блок и блок второй стороны
+         * закрываются и передаются на суммирование
+         */
+        void complete(BlockObserver side) {
+            mAnyCompleted = true;
+            mFirst.sealCurrent();
+            mSecond.sealCurrent();
+            side.mCompleted = true;
+            drain();
+        }
+
+        void error(Throwable e) {
+            if (mError.compareAndSet(null, e)) {
+                drain();
+            } else {
+                RxJavaPlugins.onError(e);
+            }
+        }
+
+        /**
+         * Вызывается только из цикла выдачи
+         */
+        private void finish() {
+            mDone = true;
+            mDisposed = true;
+            mFirst.cancel();
+            mSecond.cancel();
+            clearAll();
+        }
+
+        private void clearAll() {
+            mFirst.mBlocks.clear();
+            mSecond.mBlocks.clear();
+        }
+    }
+
+    /**
+     * Блок значений одной стороны. Значение {@link AtomicInteger} - количество записанных
+     * значений, со знаковым битом - блок закрыт и больше не пополняется
+     */
+    private static final class Block extends AtomicInteger {
+
+        private static final long serialVersionUID = 5188367453706294123L;
+        static final int SEALED = Integer.MIN_VALUE;
+
+        final int[] mValues;
+
+        Block(int[] values, int size) {
+            super(size);
+            mValues = values;
+        }
+
+        /**
+         * @return количество значений закрытого блока, либо {@code -1}, если блок ещё пополняется
+         */
+        int sealedSize() {
+            int state = get();
+            return state < 0 ? state & ~SEALED : -1;
+        }
+
+        void seal() {
+            for (;;) {
+                int state = get();
+                if (state < 0 || compareAndSet(state, state | SEALED)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private static final class BlockObserver implements Observer<Integer> {
+
+        private final SumCoordinator mParent;
+        private final int mBlockSize;
+        private final AtomicReference<Disposable> mUpstream = new AtomicReference<>();
+
+        /** Пишет только поток источника, вторая сторона читает, чтобы закрыть блок */
+        private volatile Block mCurrent;
+
+        /** Пишет только поток источника, читает цикл выдачи */
+        final SpscLinkedArrayQueue<Block> mBlocks = new SpscLinkedArrayQueue<>(16);
+        volatile boolean mCompleted;
+        /** Доступ только из цикла выдачи */
+        int mOffset;
+
+        BlockObserver(SumCoordinator parent, int blockSize) {
+            mParent = parent;
+            mBlockSize = blockSize;
+        }
+
+        @Override
+        public void onSubscribe(Disposable d) {
+            DisposableHelper.setOnce(mUpstream, d);
+        }
+
+        @Override
+        public void onNext(Integer value) {
+            int v = value;
+            Block block = mCurrent;
+            if (block != null) {
+                int size = block.get();
+                if (size >= 0) {
+                    block.mValues[size] = v;
+                    int next = size + 1;
+                    if (next == mBlockSize) {
+                        next |= Block.SEALED;
+                    }
+                    // Неудача - блок закрыла завершившаяся сторона, значение уходит в новый блок
+                    if (block.compareAndSet(size, next)) {
+                        if (next < 0) {
+                            mParent.drain();
+                        } else if (mParent.mAnyCompleted) {
+                            block.seal();
+                            mParent.drain();
+                        }
+                        return;
+                    }
+                }
+            }
+
+            int[] values = new int[mBlockSize];
+            values[0] = v;
+            block = new Block(values, mBlockSize == 1 ? 1 | Block.SEALED : 1);
+            mBlocks.offer(block);
+            mCurrent = block;
+            // Завершение второй стороны читается после публикации блока: либо она увидит блок и
+            // закроет его, либо здесь будет видно её завершение
+            if (block.get() >= 0 && mParent.mAnyCompleted) {
+                block.seal();
+            }
+            if (block.get() < 0) {
+                mParent.drain();
+            }
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            mParent.error(e);
+        }
+
+        @Override
+        public void onComplete() {
+            mParent.complete(this);
+        }
+
+        void sealCurrent() {
+            Block block = mCurrent;
+            if (block != null) {
+                block.seal();
+            }
+        }
+
+        /**
+         * Вызывается только из цикла выдачи
+         */
+        void advance(int length, int size) {
+            mOffset += length;
+            if (mOffset == size) {
+                mBlocks.poll();
+                mOffset = 0;
+            }
+        }
+
+        void cancel() {
+            DisposableHelper.dispose(mUpstream);
+        }
+    }
+}
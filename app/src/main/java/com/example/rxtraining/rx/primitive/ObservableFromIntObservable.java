@@ -0,0 +1,51 @@
+package com.example.rxtraining.rx.primitive;
+
+import io.reactivex.Observable;
+import io.reactivex.Observer;
+import io.reactivex.disposables.Disposable;
+
+/**
+ * Мост в {@code Observable<Integer>}: значения упаковываются один раз на выходе
+ */
+final class ObservableFromIntObservable extends Observable<Integer> {
+
+    private final IntObservable mSource;
+
+    ObservableFromIntObservable(IntObservable source) {
+        mSource = source;
+    }
+
+    @Override
+    protected void subscribeActual(Observer<? super Integer> observer) {
+        mSource.subscribe(new BoxingObserver(observer));
+    }
+
+    private static final class BoxingObserver implements IntObserver {
+
+        private final Observer<? super Integer> mDownstream;
+
+        BoxingObserver(Observer<? super Integer> downstream) {
+            mDownstream = downstream;
+        }
+
+        @Override
+        public void onSubscribe(Disposable d) {
+            mDownstream.onSubscribe(d);
+        }
+
+        @Override
+        public void onNext(int value) {
+            mDownstream.onNext(value);
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            mDownstream.onError(e);
+        }
+
+        @Override
+        public void onComplete() {
+            mDownstream.onComplete();
+        }
+    }
+}
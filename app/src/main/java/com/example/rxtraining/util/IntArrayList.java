@@ -0,0 +1,144 @@
+package com.example.rxtraining.util;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * Список {@link Integer}, хранящий значения в массиве {@code int}: около 4 байт на элемент вместо
+ * ~20 у {@code ArrayList<Integer>}. Значения упаковываются лениво, только при обращении через
+ * методы {@link java.util.List}, поэтому для горячего кода есть {@link #addInt(int)} и
+ * {@link #getInt(int)}.
+ * <p>
+ * Не потокобезопасен, {@code null} не поддерживается.
+ */
+public final class IntArrayList extends AbstractList<Integer> implements RandomAccess {
+
+    private static final int DEFAULT_CAPACITY = 10;
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    private int[] mValues;
+    private int mSize;
+
+    public IntArrayList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacityHint ожидаемое количество элементов, массив сразу выделяется этого размера
+     */
+    public IntArrayList(int capacityHint) {
+        if (capacityHint < 0) {
+            throw new IllegalArgumentException("capacityHint < 0: " + capacityHint);
+        }
+        mValues = new int[capacityHint];
+    }
+
+    /**
+     * @param values значения списка
+     * @return список поверх массива {@code values} без копирования. Изменения элементов списка
+     * видны в массиве, пока список не вырос
+     */
+    public static IntArrayList wrap(int[] values) {
+        IntArrayList list = new IntArrayList(0);
+        list.mValues = values;
+        list.mSize = values.length;
+        return list;
+    }
+
+    public void addInt(int value) {
+        if (mSize == mValues.length) {
+            ensureCapacity(mSize + 1);
+        }
+        mValues[mSize++] = value;
+        modCount++;
+    }
+
+    public int getInt(int index) {
+        checkIndex(index);
+        return mValues[index];
+    }
+
+    /**
+     * @return копия содержимого списка
+     */
+    public int[] toIntArray() {
+        return Arrays.copyOf(mValues, mSize);
+    }
+
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity > mValues.length) {
+            if (minCapacity > MAX_CAPACITY) {
+                throw new OutOfMemoryError("Required capacity is too large: " + minCapacity);
+            }
+            long grown = Math.max(DEFAULT_CAPACITY, mValues.length + (mValues.length >> 1));
+            int newCapacity = (int) Math.max(minCapacity, Math.min(grown, MAX_CAPACITY));
+            mValues = Arrays.copyOf(mValues, newCapacity);
+        }
+    }
+
+    public void trimToSize() {
+        if (mSize < mValues.length) {
+            mValues = Arrays.copyOf(mValues, mSize);
+        }
+    }
+
+    @Override
+    public Integer get(int index) {
+        return getInt(index);
+    }
+
+    @Override
+    public Integer set(int index, Integer element) {
+        checkIndex(index);
+        int previous = mValues[index];
+        mValues[index] = element;
+        return previous;
+    }
+
+    @Override
+    public boolean add(Integer element) {
+        addInt(element);
+        return true;
+    }
+
+    @Override
+    public void add(int index, Integer element) {
+        if (index < 0 || index > mSize) {
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + mSize);
+        }
+        int value = element;
+        ensureCapacity(mSize + 1);
+        System.arraycopy(mValues, index, mValues, index + 1, mSize - index);
+        mValues[index] = value;
+        mSize++;
+        modCount++;
+    }
+
+    @Override
+    public Integer remove(int index) {
+        checkIndex(index);
+        int previous = mValues[index];
+        System.arraycopy(mValues, index + 1, mValues, index, mSize - index - 1);
+        mSize--;
+        modCount++;
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        mSize = 0;
+        modCount++;
+    }
+
+    @Override
+    public int size() {
+        return mSize;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= mSize) {
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + mSize);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.rxtraining.util;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Растущая FIFO-очередь примитивных {@code int} на кольцевом массиве. Не потокобезопасна.
+ */
+public final class IntArrayQueue {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int[] mValues;
+    private int mHead;
+    private int mSize;
+
+    public IntArrayQueue() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntArrayQueue(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("initialCapacity < 0: " + initialCapacity);
+        }
+        mValues = new int[Math.max(1, initialCapacity)];
+    }
+
+    public void offer(int value) {
+        if (mSize == mValues.length) {
+            grow();
+        }
+        int tail = mHead + mSize;
+        if (tail >= mValues.length) {
+            tail -= mValues.length;
+        }
+        mValues[tail] = value;
+        mSize++;
+    }
+
+    /**
+     * @return первое значение очереди, которое при этом удаляется из неё
+     * @throws NoSuchElementException если очередь пуста
+     */
+    public int poll() {
+        if (mSize == 0) {
+            throw new NoSuchElementException();
+        }
+        int value = mValues[mHead];
+        if (++mHead == mValues.length) {
+            mHead = 0;
+        }
+        mSize--;
+        return value;
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    public void clear() {
+        mHead = 0;
+        mSize = 0;
+    }
+
+    private void grow() {
+        int[] values = new int[mValues.length << 1];
+        int firstPart = mValues.length - mHead;
+        System.arraycopy(mValues, mHead, values, 0, firstPart);
+        System.arraycopy(mValues, 0, values, firstPart, mHead);
+        mValues = values;
+        mHead = 0;
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.rxtraining.util;
+
+import java.util.Arrays;
+
+/**
+ * Вероятностное множество примитивных {@code int} (фильтр Блума). Может ошибочно сообщить, что
+ * значение уже встречалось, но никогда не "забывает" значение в пределах поколения.
+ * <p>
+ * Фильтр хранит два поколения битовых массивов: когда в текущее поколение добавлено
+ * {@code insertionsPerGeneration} значений, предыдущее поколение отбрасывается, а текущее
+ * становится предыдущим. Благодаря этому доля ложных срабатываний не растёт на бесконечных
+ * последовательностях, а значения, не встречавшиеся дольше двух поколений, считаются новыми.
+ * <p>
+ * Не потокобезопасен.
+ */
+public final class IntBloomFilter {
+
+    private static final double LN2 = Math.log(2);
+    /** Индексы битов 32-битные, поэтому больше 2^32 бит на поколение не адресуется */
+    private static final int MAX_WORDS = 1 << 26;
+
+    private final long mBitSize;
+    private final int mHashCount;
+    private final int mInsertionsPerGeneration;
+
+    private long[] mCurrent;
+    private long[] mPrevious;
+    private long mCurrentBitCount;
+    private long mPreviousBitCount;
+    private int mCurrentInsertions;
+    private long mGeneration;
+
+    /**
+     * @param insertionsPerGeneration количество различных значений в одном поколении
+     * @param falsePositiveRate       желаемая доля ложных срабатываний для заполненного поколения,
+     *                                в интервале (0, 1)
+     */
+    public IntBloomFilter(int insertionsPerGeneration, double falsePositiveRate) {
+        if (insertionsPerGeneration <= 0) {
+            throw new IllegalArgumentException("insertionsPerGeneration <= 0: " + insertionsPerGeneration);
+        }
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("falsePositiveRate must be in (0, 1): " + falsePositiveRate);
+        }
+        long bits = (long) Math.ceil(-insertionsPerGeneration * Math.log(falsePositiveRate) / (LN2 * LN2));
+        int words = (int) Math.min(MAX_WORDS, Math.max(1, (bits + 63) >>> 6));
+        mBitSize = (long) words << 6;
+        mHashCount = Math.max(1, (int) Math.round((double) mBitSize / insertionsPerGeneration * LN2));
+        mInsertionsPerGeneration = insertionsPerGeneration;
+        mCurrent = new long[words];
+        mPrevious = new long[words];
+    }
+
+    /**
+     * Добавление значения
+     *
+     * @param value добавляемое значение
+     * @return {@code true} если значение точно не встречалось в последних двух поколениях,
+     * {@code false} если оно встречалось или произошло ложное срабатывание
+     */
+    public boolean add(int value) {
+        long hash = mix64(value);
+        int h1 = (int) hash;
+        // Нечётный шаг: при нулевом все пробы попали бы в один бит
+        int h2 = (int) (hash >>> 32) | 1;
+        if (contains(mCurrent, h1, h2)) {
+            return false;
+        }
+        boolean seenBefore = contains(mPrevious, h1, h2);
+        if (mCurrentInsertions == mInsertionsPerGeneration) {
+            rotate();
+        }
+        set(mCurrent, h1, h2);
+        mCurrentInsertions++;
+        return !seenBefore;
+    }
+
+    /**
+     * @return {@code true} если значение, возможно, встречалось в последних двух поколениях
+     */
+    public boolean mightContain(int value) {
+        long hash = mix64(value);
+        int h1 = (int) hash;
+        // Нечётный шаг: при нулевом все пробы попали бы в один бит
+        int h2 = (int) (hash >>> 32) | 1;
+        return contains(mCurrent, h1, h2) || contains(mPrevious, h1, h2);
+    }
+
+    /**
+     * @return доля установленных битов в текущем поколении
+     */
+    public double fillRatio() {
+        return (double) mCurrentBitCount / mBitSize;
+    }
+
+    /**
+     * @return оценка вероятности ложного срабатывания {@link #add(int)} для нового значения
+     * при текущем заполнении обоих поколений
+     */
+    public double expectedFalsePositiveRate() {
+        double current = Math.pow(fillRatio(), mHashCount);
+        double previous = Math.pow((double) mPreviousBitCount / mBitSize, mHashCount);
+        return 1 - (1 - current) * (1 - previous);
+    }
+
+    /**
+     * @return количество смен поколений с момента создания или последнего {@link #clear()}
+     */
+    public long generation() {
+        return mGeneration;
+    }
+
+    public long bitSize() {
+        return mBitSize;
+    }
+
+    public int hashCount() {
+        return mHashCount;
+    }
+
+    public void clear() {
+        Arrays.fill(mCurrent, 0L);
+        Arrays.fill(mPrevious, 0L);
+        mCurrentBitCount = 0;
+        mPreviousBitCount = 0;
+        mCurrentInsertions = 0;
+        mGeneration = 0;
+    }
+
+    private void rotate() {
+        long[] recycled = mPrevious;
+        Arrays.fill(recycled, 0L);
+        mPrevious = mCurrent;
+        mPreviousBitCount = mCurrentBitCount;
+        mCurrent = recycled;
+        mCurrentBitCount = 0;
+        mCurrentInsertions = 0;
+        mGeneration++;
+    }
+
+    private boolean contains(long[] bits, int h1, int h2) {
+        int combined = h1;
+        for (int i = 0; i < mHashCount; i++) {
+            long index = (combined & 0xFFFFFFFFL) % mBitSize;
+            if ((bits[(int) (index >>> 6)] & (1L << index)) == 0) {
+                return false;
+            }
+            combined += h2;
+        }
+        return true;
+    }
+
+    private void set(long[] bits, int h1, int h2) {
+        int combined = h1;
+        for (int i = 0; i < mHashCount; i++) {
+            long index = (combined & 0xFFFFFFFFL) % mBitSize;
+            int word = (int) (index >>> 6);
+            long mask = 1L << index;
+            if ((bits[word] & mask) == 0) {
+                bits[word] |= mask;
+                mCurrentBitCount++;
+            }
+            combined += h2;
+        }
+    }
+
+    /** Финализатор SplitMix64: две независимые 32-битные половины для двойного хеширования */
+    private static long mix64(int value) {
+        long z = (value & 0xFFFFFFFFL) + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
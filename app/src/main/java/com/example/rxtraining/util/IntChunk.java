@@ -0,0 +1,92 @@
+package com.example.rxtraining.util;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Блок значений {@code int}, выдаваемый {@link IntChunkPool}. После обработки блок нужно вернуть
+ * в пул вызовом {@link #release()}, после чего обращаться к нему нельзя.
+ * <p>
+ * Переиспользуется массив значений, а сам блок выдаётся каждый раз новый, поэтому повторный или
+ * запоздавший {@link #release()} от прежнего владельца не может вернуть в пул массив, который
+ * уже выдан следующему.
+ */
+public final class IntChunk {
+
+    private static final AtomicIntegerFieldUpdater<IntChunk> RELEASED =
+            AtomicIntegerFieldUpdater.newUpdater(IntChunk.class, "mReleased");
+
+    private final IntChunkPool mPool;
+    private final int[] mValues;
+    private int mSize;
+    private volatile int mReleased;
+
+    IntChunk(IntChunkPool pool, int[] values) {
+        mPool = pool;
+        mValues = values;
+    }
+
+    public int get(int index) {
+        checkNotReleased();
+        if (index < 0 || index >= mSize) {
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + mSize);
+        }
+        return mValues[index];
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    public int capacity() {
+        return mValues.length;
+    }
+
+    public boolean isFull() {
+        return mSize == mValues.length;
+    }
+
+    /**
+     * @return внутренний массив блока без копирования, значимы первые {@link #size()} элементов
+     */
+    public int[] array() {
+        checkNotReleased();
+        return mValues;
+    }
+
+    /**
+     * @return копия значений блока
+     */
+    public int[] toArray() {
+        checkNotReleased();
+        int[] result = new int[mSize];
+        System.arraycopy(mValues, 0, result, 0, mSize);
+        return result;
+    }
+
+    /**
+     * Возврат блока в пул
+     *
+     * @throws IllegalStateException если блок уже был возвращён
+     */
+    public void release() {
+        if (!RELEASED.compareAndSet(this, 0, 1)) {
+            throw new IllegalStateException("Chunk is already released");
+        }
+        mPool.recycle(mValues);
+    }
+
+    /**
+     * Добавление значения при заполнении блока, см. {@link IntChunkWriter}
+     *
+     * @throws ArrayIndexOutOfBoundsException если блок уже заполнен
+     */
+    void add(int value) {
+        mValues[mSize++] = value;
+    }
+
+    private void checkNotReleased() {
+        if (mReleased != 0) {
+            throw new IllegalStateException("Chunk is already released");
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.rxtraining.util;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ограниченный пул блоков {@link IntChunk} одинакового размера. В установившемся режиме массивы
+ * значений блоков только переиспользуются, и нарезка последовательности на блоки создаёт лишь
+ * небольшие объекты самих блоков.
+ * <p>
+ * Пул никогда не блокирует: если свободных блоков нет (например, подписчик забыл вызвать
+ * {@link IntChunk#release()}), создаётся новый блок, а невозвращённые блоки просто собираются
+ * сборщиком мусора. В пуле хранится не больше {@code maxPooled} блоков, поэтому утечка не
+ * приводит к неограниченному росту памяти, а видна по {@link #outstanding()}.
+ * <p>
+ * Потокобезопасен: блоки можно получать и возвращать из разных потоков.
+ */
+public final class IntChunkPool {
+
+    private final int mChunkSize;
+    private final ArrayBlockingQueue<int[]> mFree;
+    private final AtomicLong mAllocated = new AtomicLong();
+    private final AtomicLong mAcquired = new AtomicLong();
+    private final AtomicLong mReleased = new AtomicLong();
+
+    /**
+     * @param chunkSize размер блока
+     * @param maxPooled максимальное количество свободных блоков, хранимых в пуле
+     */
+    public IntChunkPool(int chunkSize, int maxPooled) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize <= 0: " + chunkSize);
+        }
+        if (maxPooled <= 0) {
+            throw new IllegalArgumentException("maxPooled <= 0: " + maxPooled);
+        }
+        mChunkSize = chunkSize;
+        mFree = new ArrayBlockingQueue<>(maxPooled);
+    }
+
+    /**
+     * @return пустой блок из пула, либо новый блок, если свободных нет
+     */
+    public IntChunk acquire() {
+        int[] values = mFree.poll();
+        if (values == null) {
+            values = new int[mChunkSize];
+            mAllocated.incrementAndGet();
+        }
+        mAcquired.incrementAndGet();
+        return new IntChunk(this, values);
+    }
+
+    void recycle(int[] values) {
+        mReleased.incrementAndGet();
+        mFree.offer(values);
+    }
+
+    public int chunkSize() {
+        return mChunkSize;
+    }
+
+    /**
+     * @return сколько массивов блоков было создано за всё время, в установившемся режиме не растёт
+     */
+    public long allocated() {
+        return mAllocated.get();
+    }
+
+    /**
+     * @return количество свободных блоков в пуле
+     */
+    public int available() {
+        return mFree.size();
+    }
+
+    /**
+     * @return количество выданных, но ещё не возвращённых блоков
+     */
+    public long outstanding() {
+        return mAcquired.get() - mReleased.get();
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.rxtraining.util;
+
+/**
+ * Заполнение блоков {@link IntChunk} из {@link IntChunkPool} значениями по одному. Значения в
+ * блок добавляются только здесь, поэтому отданный блок уже не меняется.
+ * <p>
+ * Не потокобезопасен.
+ */
+public final class IntChunkWriter {
+
+    private final IntChunkPool mPool;
+    private IntChunk mChunk;
+
+    public IntChunkWriter(IntChunkPool pool) {
+        mPool = pool;
+    }
+
+    /**
+     * @return блок, который заполнился этим значением и переходит к вызывающему, либо
+     * {@code null}, если блок ещё не заполнен
+     */
+    public IntChunk write(int value) {
+        IntChunk chunk = mChunk;
+        if (chunk == null) {
+            chunk = mPool.acquire();
+            mChunk = chunk;
+        }
+        chunk.add(value);
+        if (chunk.isFull()) {
+            mChunk = null;
+            return chunk;
+        }
+        return null;
+    }
+
+    /**
+     * @return неполный блок, который переходит к вызывающему, либо {@code null}, если значений
+     * после последнего заполненного блока не было
+     */
+    public IntChunk flush() {
+        IntChunk chunk = mChunk;
+        mChunk = null;
+        return chunk;
+    }
+
+    /**
+     * Возврат неполного блока в пул
+     */
+    public void discard() {
+        IntChunk chunk = flush();
+        if (chunk != null) {
+            chunk.release();
+        }
+    }
+}
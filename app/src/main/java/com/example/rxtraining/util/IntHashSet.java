@@ -0,0 +1,178 @@
+package com.example.rxtraining.util;
+
+import java.util.Arrays;
+
+/**
+ * Множество примитивных {@code int} на основе хеш-таблицы с открытой адресацией и линейным
+ * пробированием. В отличие от {@code HashSet<Integer>} не упаковывает значения и не создаёт
+ * объектов на каждое добавление.
+ */
+public final class IntHashSet {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    /** Ноль используется как маркер пустой ячейки, поэтому хранится отдельным флагом */
+    private static final int EMPTY = 0;
+
+    private int[] mTable;
+    private int mMask;
+    private int mSize;
+    private boolean mHasZero;
+
+    public IntHashSet() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize ожидаемое количество элементов, таблица сразу выделяется так, чтобы
+     *                     вместить их без перехеширования
+     */
+    public IntHashSet(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("expectedSize < 0: " + expectedSize);
+        }
+        int capacity = tableSizeFor(Math.max(DEFAULT_CAPACITY, expectedSize * 2));
+        mTable = new int[capacity];
+        mMask = capacity - 1;
+    }
+
+    /**
+     * @param value добавляемое значение
+     * @return {@code true} если значения ещё не было в множестве
+     */
+    public boolean add(int value) {
+        if (value == EMPTY) {
+            if (mHasZero) {
+                return false;
+            }
+            mHasZero = true;
+            mSize++;
+            return true;
+        }
+        int index = mix(value) & mMask;
+        int current;
+        while ((current = mTable[index]) != EMPTY) {
+            if (current == value) {
+                return false;
+            }
+            index = (index + 1) & mMask;
+        }
+        mTable[index] = value;
+        if (++mSize > (mTable.length >> 1)) {
+            rehash(mTable.length << 1);
+        }
+        return true;
+    }
+
+    public boolean contains(int value) {
+        if (value == EMPTY) {
+            return mHasZero;
+        }
+        int index = mix(value) & mMask;
+        int current;
+        while ((current = mTable[index]) != EMPTY) {
+            if (current == value) {
+                return true;
+            }
+            index = (index + 1) & mMask;
+        }
+        return false;
+    }
+
+    /**
+     * @param value удаляемое значение
+     * @return {@code true} если значение было в множестве
+     */
+    public boolean remove(int value) {
+        if (value == EMPTY) {
+            if (!mHasZero) {
+                return false;
+            }
+            mHasZero = false;
+            mSize--;
+            return true;
+        }
+        int index = mix(value) & mMask;
+        int current;
+        while ((current = mTable[index]) != EMPTY) {
+            if (current == value) {
+                shiftBackward(mTable, mMask, index);
+                mSize--;
+                return true;
+            }
+            index = (index + 1) & mMask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(mTable, EMPTY);
+        mHasZero = false;
+        mSize = 0;
+    }
+
+    private void rehash(int newCapacity) {
+        int[] oldTable = mTable;
+        mTable = new int[newCapacity];
+        mMask = newCapacity - 1;
+        for (int value : oldTable) {
+            if (value != EMPTY) {
+                int index = mix(value) & mMask;
+                while (mTable[index] != EMPTY) {
+                    index = (index + 1) & mMask;
+                }
+                mTable[index] = value;
+            }
+        }
+    }
+
+    /**
+     * Удаление без "надгробий": сдвигаем назад элементы цепочки пробирования, которые
+     * иначе стали бы недостижимы
+     */
+    private static void shiftBackward(int[] table, int mask, int freeIndex) {
+        int index = freeIndex;
+        while (true) {
+            index = (index + 1) & mask;
+            int value = table[index];
+            if (value == EMPTY) {
+                break;
+            }
+            int home = mix(value) & mask;
+            if (((index - home) & mask) >= ((index - freeIndex) & mask)) {
+                table[freeIndex] = value;
+                freeIndex = index;
+            }
+        }
+        table[freeIndex] = EMPTY;
+    }
+
+    /**
+     * Перемешивание битов (финализатор MurmurHash3), чтобы последовательные числа не
+     * образовывали длинных цепочек
+     */
+    static int mix(int value) {
+        int h = value;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    static int tableSizeFor(int capacity) {
+        int n = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        if (n <= 0) {
+            throw new IllegalArgumentException("capacity is too large: " + capacity);
+        }
+        return n;
+    }
+}
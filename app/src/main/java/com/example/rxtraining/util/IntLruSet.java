@@ -0,0 +1,157 @@
+package com.example.rxtraining.util;
+
+/**
+ * Множество примитивных {@code int} ограниченного размера. При переполнении вытесняется
+ * значение, к которому дольше всего не обращались (LRU), поэтому память не растёт на
+ * бесконечных последовательностях.
+ * <p>
+ * Все данные хранятся в массивах {@code int}, выделенных один раз в конструкторе: хеш-таблица
+ * с открытой адресацией ссылается на узлы двусвязного списка, упорядоченного по времени
+ * последнего обращения.
+ */
+public final class IntLruSet {
+
+    private static final int NONE = -1;
+
+    /** Номер узла + 1, ноль - пустая ячейка */
+    private final int[] mTable;
+    private final int mMask;
+
+    private final int[] mKeys;
+    private final int[] mPrev;
+    private final int[] mNext;
+
+    /** Самый давно использованный узел */
+    private int mHead = NONE;
+    /** Самый недавно использованный узел */
+    private int mTail = NONE;
+    private int mSize;
+
+    /**
+     * @param capacity максимальное количество хранимых значений
+     */
+    public IntLruSet(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity <= 0: " + capacity);
+        }
+        int tableSize = IntHashSet.tableSizeFor(capacity * 2);
+        mTable = new int[tableSize];
+        mMask = tableSize - 1;
+        mKeys = new int[capacity];
+        mPrev = new int[capacity];
+        mNext = new int[capacity];
+    }
+
+    /**
+     * Добавление значения. Если значение уже есть, оно становится самым недавно
+     * использованным. Если множество заполнено, вытесняется самое давно использованное значение.
+     *
+     * @param value добавляемое значение
+     * @return {@code true} если значения не было в множестве
+     */
+    public boolean add(int value) {
+        int index = IntHashSet.mix(value) & mMask;
+        int slot;
+        while ((slot = mTable[index]) != 0) {
+            int node = slot - 1;
+            if (mKeys[node] == value) {
+                moveToTail(node);
+                return false;
+            }
+            index = (index + 1) & mMask;
+        }
+
+        int node;
+        if (mSize == mKeys.length) {
+            node = mHead;
+            removeFromTable(mKeys[node]);
+            unlink(node);
+            // Ячейка под новое значение могла сдвинуться при удалении
+            index = IntHashSet.mix(value) & mMask;
+            while (mTable[index] != 0) {
+                index = (index + 1) & mMask;
+            }
+        } else {
+            node = mSize++;
+        }
+        mKeys[node] = value;
+        mTable[index] = node + 1;
+        linkLast(node);
+        return true;
+    }
+
+    public boolean contains(int value) {
+        return findSlot(value) != NONE;
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    public int capacity() {
+        return mKeys.length;
+    }
+
+    private int findSlot(int value) {
+        int index = IntHashSet.mix(value) & mMask;
+        int slot;
+        while ((slot = mTable[index]) != 0) {
+            if (mKeys[slot - 1] == value) {
+                return index;
+            }
+            index = (index + 1) & mMask;
+        }
+        return NONE;
+    }
+
+    private void removeFromTable(int value) {
+        int freeIndex = findSlot(value);
+        int index = freeIndex;
+        while (true) {
+            index = (index + 1) & mMask;
+            int slot = mTable[index];
+            if (slot == 0) {
+                break;
+            }
+            int home = IntHashSet.mix(mKeys[slot - 1]) & mMask;
+            if (((index - home) & mMask) >= ((index - freeIndex) & mMask)) {
+                mTable[freeIndex] = slot;
+                freeIndex = index;
+            }
+        }
+        mTable[freeIndex] = 0;
+    }
+
+    private void moveToTail(int node) {
+        if (node != mTail) {
+            unlink(node);
+            linkLast(node);
+        }
+    }
+
+    private void unlink(int node) {
+        int prev = mPrev[node];
+        int next = mNext[node];
+        if (prev == NONE) {
+            mHead = next;
+        } else {
+            mNext[prev] = next;
+        }
+        if (next == NONE) {
+            mTail = prev;
+        } else {
+            mPrev[next] = prev;
+        }
+    }
+
+    private void linkLast(int node) {
+        mPrev[node] = mTail;
+        mNext[node] = NONE;
+        if (mTail == NONE) {
+            mHead = node;
+        } else {
+            mNext[mTail] = node;
+        }
+        mTail = node;
+    }
+}
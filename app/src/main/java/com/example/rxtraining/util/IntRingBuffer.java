@@ -0,0 +1,80 @@
+package com.example.rxtraining.util;
+
+/**
+ * Кольцевой буфер фиксированного размера для примитивных {@code int}. При переполнении
+ * самые старые значения перезаписываются, поэтому в буфере всегда хранятся последние
+ * {@link #capacity()} добавленных значений.
+ */
+public final class IntRingBuffer {
+
+    private final int[] mValues;
+    private int mHead;
+    private int mSize;
+
+    /**
+     * @param capacity максимальное количество хранимых значений, {@code 0} - буфер ничего не
+     *                 хранит
+     */
+    public IntRingBuffer(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity < 0: " + capacity);
+        }
+        mValues = new int[capacity];
+    }
+
+    /**
+     * Добавление значения, при заполненном буфере вытесняет самое старое значение
+     *
+     * @param value добавляемое значение
+     */
+    public void add(int value) {
+        int capacity = mValues.length;
+        if (capacity == 0) {
+            return;
+        }
+        int tail = mHead + mSize;
+        if (tail >= capacity) {
+            tail -= capacity;
+        }
+        mValues[tail] = value;
+        if (mSize < capacity) {
+            mSize++;
+        } else if (++mHead == capacity) {
+            mHead = 0;
+        }
+    }
+
+    /**
+     * @param index индекс от самого старого (0) до самого нового ({@code size() - 1}) значения
+     * @return значение по индексу
+     */
+    public int get(int index) {
+        if (index < 0 || index >= mSize) {
+            throw new IndexOutOfBoundsException("index: " + index + ", size: " + mSize);
+        }
+        int position = mHead + index;
+        if (position >= mValues.length) {
+            position -= mValues.length;
+        }
+        return mValues[position];
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    public int capacity() {
+        return mValues.length;
+    }
+
+    /**
+     * @return копия содержимого буфера от самого старого до самого нового значения
+     */
+    public int[] toArray() {
+        int[] result = new int[mSize];
+        int firstPart = Math.min(mSize, mValues.length - mHead);
+        System.arraycopy(mValues, mHead, result, 0, firstPart);
+        System.arraycopy(mValues, 0, result, firstPart, mSize - firstPart);
+        return result;
+    }
+}
@@ -0,0 +1,284 @@
+package com.example.rxtraining.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Инвертированный индекс строк по триграммам, разделённый по категориям. Находит строки
+ * категории, содержащие строку поиска без учёта регистра.
+ * <p>
+ * Для каждой триграммы (трёх подряд идущих символов в нижнем регистре) хранится отсортированный
+ * массив {@code int} с идентификаторами содержащих её строк. Поиск пересекает списки триграмм
+ * строки поиска, начиная с самого короткого, и проверяет оставшихся кандидатов на вхождение
+ * подстроки. Строки поиска короче трёх символов проверяются перебором строк категории.
+ * <p>
+ * Строки добавляются и удаляются по одной, без перестроения индекса. Идентификаторы удалённых
+ * строк выдаются снова, поэтому память индекса ограничена наибольшим количеством строк, а не
+ * количеством добавлений. Новый идентификатор обычно больше всех занятых, и добавление - это
+ * дописывание в конец списков; переиспользованный вставляется в середину.
+ * <p>
+ * Каждое изменение увеличивает {@link #version()}, по ней кэши поверх индекса узнают, что их
+ * результаты устарели.
+ * <p>
+ * Потокобезопасен, поиски выполняются параллельно друг с другом.
+ */
+public final class SearchIndex {
+
+    private static final int GRAM = 3;
+    private static final Comparator<Postings> BY_SIZE = (p1, p2) -> Integer.compare(p1.mSize, p2.mSize);
+
+    private final ReadWriteLock mLock = new ReentrantReadWriteLock();
+    private final HashMap<Integer, Partition> mPartitions = new HashMap<>();
+
+    private String[] mItems = new String[16];
+    private String[] mLowerItems = new String[16];
+    private int[] mCategories = new int[16];
+    private int mNextId;
+    private int mSize;
+    /** Освободившиеся идентификаторы, выдаются в первую очередь */
+    private int[] mFreeIds = new int[16];
+    private int mFreeCount;
+    private volatile long mVersion;
+
+    /**
+     * @param item       строка
+     * @param categoryId категория строки
+     * @return идентификатор, по которому строку можно удалить из индекса
+     */
+    public int add(String item, int categoryId) {
+        String lowerItem = item.toLowerCase(Locale.ROOT);
+        mLock.writeLock().lock();
+        try {
+            int id = mFreeCount > 0 ? mFreeIds[--mFreeCount] : mNextId++;
+            if (id == mItems.length) {
+                int capacity = mItems.length * 2;
+                mItems = Arrays.copyOf(mItems, capacity);
+                mLowerItems = Arrays.copyOf(mLowerItems, capacity);
+                mCategories = Arrays.copyOf(mCategories, capacity);
+            }
+            mItems[id] = item;
+            mLowerItems[id] = lowerItem;
+            mCategories[id] = categoryId;
+            mSize++;
+
+            Partition partition = mPartitions.get(categoryId);
+            if (partition == null) {
+                partition = new Partition();
+                mPartitions.put(categoryId, partition);
+            }
+            partition.mAll.add(id);
+            for (int i = 0; i + GRAM <= lowerItem.length(); i++) {
+                long gram = gram(lowerItem, i);
+                Postings postings = partition.mGrams.get(gram);
+                if (postings == null) {
+                    postings = new Postings();
+                    partition.mGrams.put(gram, postings);
+                }
+                postings.add(id);
+            }
+            mVersion++;
+            return id;
+        } finally {
+            mLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param id идентификатор, полученный из {@link #add(String, int)}. После удаления он может
+     *           быть выдан другой строке
+     * @return {@code true}, если строка была в индексе
+     */
+    public boolean remove(int id) {
+        mLock.writeLock().lock();
+        try {
+            if (id < 0 || id >= mNextId || mItems[id] == null) {
+                return false;
+            }
+            String lowerItem = mLowerItems[id];
+            Partition partition = mPartitions.get(mCategories[id]);
+            partition.mAll.remove(id);
+            for (int i = 0; i + GRAM <= lowerItem.length(); i++) {
+                long gram = gram(lowerItem, i);
+                Postings postings = partition.mGrams.get(gram);
+                if (postings != null && postings.remove(id) && postings.mSize == 0) {
+                    partition.mGrams.remove(gram);
+                }
+            }
+            if (partition.mAll.mSize == 0) {
+                mPartitions.remove(mCategories[id]);
+            }
+            mItems[id] = null;
+            mLowerItems[id] = null;
+            mSize--;
+            if (mFreeCount == mFreeIds.length) {
+                mFreeIds = Arrays.copyOf(mFreeIds, mFreeCount * 2);
+            }
+            mFreeIds[mFreeCount++] = id;
+            mVersion++;
+            return true;
+        } finally {
+            mLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param searchString строка поиска
+     * @param categoryId   категория
+     * @return строки категории {@code categoryId}, содержащие {@code searchString} без учёта
+     * регистра, в порядке идентификаторов (без удалений - в порядке добавления)
+     */
+    public List<String> search(String searchString, int categoryId) {
+        String query = searchString.toLowerCase(Locale.ROOT);
+        mLock.readLock().lock();
+        try {
+            Partition partition = mPartitions.get(categoryId);
+            if (partition == null) {
+                return Collections.emptyList();
+            }
+            if (query.length() < GRAM) {
+                return collect(partition.mAll.mIds, partition.mAll.mSize, query);
+            }
+
+            int gramCount = query.length() - GRAM + 1;
+            Postings[] lists = new Postings[gramCount];
+            for (int i = 0; i < gramCount; i++) {
+                lists[i] = partition.mGrams.get(gram(query, i));
+                if (lists[i] == null) {
+                    return Collections.emptyList();
+                }
+            }
+            Arrays.sort(lists, BY_SIZE);
+
+            int[] candidates = Arrays.copyOf(lists[0].mIds, lists[0].mSize);
+            int size = candidates.length;
+            for (int i = 1; i < gramCount && size > 0; i++) {
+                if (lists[i] != lists[i - 1]) {
+                    size = intersect(candidates, size, lists[i]);
+                }
+            }
+            return collect(candidates, size, query);
+        } finally {
+            mLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return количество строк в индексе
+     */
+    public int size() {
+        mLock.readLock().lock();
+        try {
+            return mSize;
+        } finally {
+            mLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return номер версии содержимого, меняется при каждом добавлении и удалении
+     */
+    public long version() {
+        return mVersion;
+    }
+
+    /**
+     * Проверка кандидатов на вхождение подстроки. Вызывается под блокировкой чтения
+     */
+    private List<String> collect(int[] ids, int size, String query) {
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            int id = ids[i];
+            if (mLowerItems[id].contains(query)) {
+                result.add(mItems[id]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Оставляет в начале {@code ids} только элементы, которые есть в {@code postings}. Позиция в
+     * {@code postings} продвигается экспоненциальным поиском, поэтому короткий список
+     * пересекается с длинным за {@code O(n log(m / n))}
+     *
+     * @return количество оставшихся элементов
+     */
+    static int intersect(int[] ids, int size, Postings postings) {
+        int[] other = postings.mIds;
+        int otherSize = postings.mSize;
+        int result = 0;
+        int from = 0;
+        for (int i = 0; i < size && from < otherSize; i++) {
+            int id = ids[i];
+            int bound = 1;
+            while (from + bound < otherSize && other[from + bound] < id) {
+                bound <<= 1;
+            }
+            int index = Arrays.binarySearch(other, from, Math.min(from + bound + 1, otherSize), id);
+            if (index >= 0) {
+                ids[result++] = id;
+                from = index + 1;
+            } else {
+                from = -index - 1;
+            }
+        }
+        return result;
+    }
+
+    private static long gram(String s, int offset) {
+        return ((long) s.charAt(offset) << 32) | ((long) s.charAt(offset + 1) << 16) | s.charAt(offset + 2);
+    }
+
+    private static final class Partition {
+
+        /** Все строки категории, для коротких строк поиска */
+        final Postings mAll = new Postings();
+        final HashMap<Long, Postings> mGrams = new HashMap<>();
+    }
+
+    /**
+     * Отсортированный по возрастанию список идентификаторов без повторов
+     */
+    static final class Postings {
+
+        int[] mIds = new int[4];
+        int mSize;
+
+        void add(int id) {
+            int index = mSize;
+            if (mSize > 0 && mIds[mSize - 1] >= id) {
+                index = Arrays.binarySearch(mIds, 0, mSize, id);
+                if (index >= 0) {
+                    // Триграмма уже встречалась в этой строке
+                    return;
+                }
+                index = -index - 1;
+            }
+            if (mSize == mIds.length) {
+                mIds = Arrays.copyOf(mIds, mSize * 2);
+            }
+            System.arraycopy(mIds, index, mIds, index + 1, mSize - index);
+            mIds[index] = id;
+            mSize++;
+        }
+
+        boolean remove(int id) {
+            int index = Arrays.binarySearch(mIds, 0, mSize, id);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(mIds, index + 1, mIds, index, mSize - index - 1);
+            mSize--;
+            if (mSize > 16 && mSize < mIds.length / 4) {
+                mIds = Arrays.copyOf(mIds, mIds.length / 2);
+            }
+            return true;
+        }
+    }
+}
@@ -1,27 +1,50 @@
 package com.example.rxtraining;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.verify;
 import static org.mockito.internal.verification.VerificationModeFactory.times;
 
 import com.example.rxtraining.rx.RxCombiningTraining;
+import com.example.rxtraining.rx.operators.LatencyMetrics;
+import com.example.rxtraining.rx.operators.PrefixSearchCache;
+import com.example.rxtraining.rx.operators.ZipSkewMetrics;
+import com.example.rxtraining.rx.primitive.IntObservable;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import io.reactivex.Flowable;
 import io.reactivex.Observable;
 import io.reactivex.Scheduler;
+import io.reactivex.functions.BiFunction;
 import io.reactivex.functions.Function;
 import io.reactivex.observers.TestObserver;
 import io.reactivex.plugins.RxJavaPlugins;
+import io.reactivex.processors.PublishProcessor;
 import io.reactivex.schedulers.TestScheduler;
+import io.reactivex.subscribers.TestSubscriber;
+import io.reactivex.subjects.PublishSubject;
 
 /**
  * @author Arthur Korchagin (artur.korchagin@simbirsoft.com)
@@ -57,6 +80,143 @@ public class RxCombiningTrainingTest {
         testObserver.assertValues(11, 22, 33, 44, 55);
     }
 
+    @Test
+    public void summation_intObservable() {
+        TestObserver<Integer> testObserver = mRxCombiningTraining.summation(
+                IntObservable.fromArray(1, 2, 3, 4, 5),
+                IntObservable.fromObservable(Observable.fromArray(10, 20, 30, 40)))
+                .toObservable()
+                .test();
+
+        testObserver.assertNoErrors();
+        testObserver.assertComplete();
+        testObserver.assertValues(11, 22, 33, 44);
+    }
+
+    @Test
+    public void summation_blocks() {
+        TestObserver<Integer> testObserver = mRxCombiningTraining.summation(
+                Observable.range(1, 10),
+                Observable.range(100, 7),
+                4)
+                .test();
+
+        testObserver.assertNoErrors();
+        testObserver.assertComplete();
+        testObserver.assertValues(101, 103, 105, 107, 109, 111, 113);
+    }
+
+    @Test
+    public void summation_blocksCompleteWithShorterSide() {
+        PublishSubject<Integer> first = PublishSubject.create();
+        PublishSubject<Integer> second = PublishSubject.create();
+
+        TestObserver<int[]> testObserver = mRxCombiningTraining.summationBlocks(first, second, 4).test();
+
+        second.onNext(10);
+        second.onNext(20);
+        first.onNext(1);
+        first.onNext(2);
+        first.onNext(3);
+        first.onComplete();
+        // Недособранный блок второй стороны суммируется сразу, а не ждёт заполнения
+        testObserver.assertValueCount(1);
+        assertArrayEquals(new int[]{11, 22}, testObserver.values().get(0));
+        testObserver.assertNotComplete();
+
+        second.onNext(30);
+        testObserver.assertValueCount(2);
+        assertArrayEquals(new int[]{33}, testObserver.values().get(1));
+        testObserver.assertComplete();
+        assertFalse(second.hasObservers());
+    }
+
+    @Test
+    public void summation_blocksFlushPeerOnComplete() {
+        PublishSubject<Integer> first = PublishSubject.create();
+        PublishSubject<Integer> second = PublishSubject.create();
+
+        TestObserver<int[]> testObserver = mRxCombiningTraining.summationBlocks(first, second, 4).test();
+
+        first.onNext(1);
+        second.onNext(10);
+        second.onComplete();
+
+        testObserver.assertValueCount(1);
+        assertArrayEquals(new int[]{11}, testObserver.values().get(0));
+        testObserver.assertComplete();
+        assertFalse(first.hasObservers());
+    }
+
+    @Test
+    public void summation_blocksMatchZip() {
+        Random random = new Random(21);
+        for (int round = 0; round < 500; round++) {
+            PublishSubject<Integer> first = PublishSubject.create();
+            PublishSubject<Integer> second = PublishSubject.create();
+            TestObserver<Integer> expected = first.zipWith(second, new BiFunction<Integer, Integer, Integer>() {
+                @Override
+                public Integer apply(Integer a, Integer b) {
+                    return a + b;
+                }
+            }).test();
+            TestObserver<Integer> testObserver = mRxCombiningTraining
+                    .summation(first, second, 1 + random.nextInt(6))
+                    .test();
+
+            // Случайное чередование значений сторон, пока одна из них не завершится
+            int value = 0;
+            while (!expected.isTerminated()) {
+                int action = random.nextInt(10);
+                PublishSubject<Integer> side = random.nextBoolean() ? first : second;
+                if (action == 0) {
+                    side.onComplete();
+                } else {
+                    side.onNext(value++);
+                }
+            }
+
+            testObserver.assertComplete();
+            testObserver.assertValueSequence(expected.values());
+        }
+    }
+
+    @Test
+    public void summation_blocksError() {
+        Exception exception = new Exception();
+
+        TestObserver<Integer> testObserver = mRxCombiningTraining.summation(
+                Observable.range(1, 10),
+                Observable.just(1, 2).concatWith(Observable.<Integer>error(exception)),
+                4)
+                .test();
+
+        testObserver.assertValues(2, 4);
+        testObserver.assertError(exception);
+    }
+
+    @Test
+    public void summation_flowableBoundsFastSide() {
+        PublishProcessor<Integer> slow = PublishProcessor.create();
+        ZipSkewMetrics skew = new ZipSkewMetrics();
+
+        TestSubscriber<Integer> testSubscriber = mRxCombiningTraining
+                .summation(Flowable.range(1, 1_000_000), slow, 16, 16, skew)
+                .test();
+
+        for (int i = 0; i < 100; i++) {
+            slow.onNext(1000);
+        }
+        slow.onComplete();
+
+        testSubscriber.assertValueCount(100);
+        testSubscriber.assertComplete();
+        assertEquals(1001, testSubscriber.values().get(0).intValue());
+        assertEquals(100, skew.second());
+        assertTrue("fast side is not throttled: " + skew.first(), skew.first() <= 100 + 16 + 1);
+        assertTrue("skew is not bounded: " + skew.maxSkew(), skew.maxSkew() <= 16 + 1);
+    }
+
     @Test
     public void requestItems() {
         final long period = 1;
@@ -128,6 +288,204 @@ public class RxCombiningTrainingTest {
         testObserver.assertComplete();
     }
 
+    @Test
+    public void requestItems_cancelsStaleSearch() {
+        PublishSubject<String> searchSubject = PublishSubject.create();
+        PublishSubject<Integer> categorySubject = PublishSubject.create();
+
+        TestObserver<List<String>> testObserver = mRxCombiningTraining
+                .requestItems(searchSubject, categorySubject)
+                .test();
+
+        categorySubject.onNext(1);
+        searchSubject.onNext("a");
+        searchSubject.onNext("ab");
+        verify(mRxCombiningTraining, never()).searchItems(anyString(), anyInt());
+
+        mTestScheduler.triggerActions();
+
+        testObserver.assertValueCount(1);
+        verify(mRxCombiningTraining, never()).searchItems(eq("a"), anyInt());
+        verify(mRxCombiningTraining).searchItems(eq("ab"), eq(1));
+    }
+
+    @Test
+    public void requestItems_narrowsCachedPrefix() {
+        doReturn(Arrays.asList("Abc", "aXc", "xab", "b")).when(mRxCombiningTraining).searchItems(eq("a"), eq(1));
+        PrefixSearchCache cache = mRxCombiningTraining.createSearchCache(100);
+        PublishSubject<String> searchSubject = PublishSubject.create();
+
+        TestObserver<List<String>> testObserver = mRxCombiningTraining
+                .requestItems(searchSubject, Observable.just(1), cache)
+                .test();
+
+        searchSubject.onNext("a");
+        mTestScheduler.triggerActions();
+        searchSubject.onNext("ab");
+        mTestScheduler.triggerActions();
+        searchSubject.onNext("abc");
+        mTestScheduler.triggerActions();
+        searchSubject.onNext("ab");
+        mTestScheduler.triggerActions();
+
+        testObserver.assertValueSequence(Arrays.<List<String>>asList(
+                Arrays.asList("Abc", "aXc", "xab", "b"),
+                Arrays.asList("Abc", "xab"),
+                Collections.singletonList("Abc"),
+                Arrays.asList("Abc", "xab")));
+        verify(mRxCombiningTraining, times(1)).searchItems(anyString(), anyInt());
+        assertEquals(1, cache.misses());
+        assertEquals(2, cache.narrowed());
+        assertEquals(1, cache.hits());
+    }
+
+    @Test
+    public void requestItems_coalescesInput() {
+        PublishSubject<String> searchSubject = PublishSubject.create();
+        LatencyMetrics latency = new LatencyMetrics();
+
+        TestObserver<List<String>> testObserver = mRxCombiningTraining
+                .requestItems(searchSubject, Observable.just(1), 100, 500, latency)
+                .test();
+
+        searchSubject.onNext("a");
+        mTestScheduler.advanceTimeTo(10, TimeUnit.MILLISECONDS);
+        searchSubject.onNext("ab");
+        mTestScheduler.advanceTimeTo(20, TimeUnit.MILLISECONDS);
+        searchSubject.onNext("abc");
+        mTestScheduler.advanceTimeTo(200, TimeUnit.MILLISECONDS);
+        testObserver.assertValueCount(1);
+        verify(mRxCombiningTraining, times(1)).searchItems(anyString(), anyInt());
+
+        // Тот же запрос повторно не ищется
+        searchSubject.onNext("abc");
+        mTestScheduler.advanceTimeTo(400, TimeUnit.MILLISECONDS);
+        testObserver.assertValueCount(1);
+
+        // Не чаще одного поиска в 500 мс: следующий поиск только через 500 мс после первого
+        searchSubject.onNext("abcd");
+        mTestScheduler.advanceTimeTo(600, TimeUnit.MILLISECONDS);
+        testObserver.assertValueCount(1);
+        mTestScheduler.advanceTimeTo(700, TimeUnit.MILLISECONDS);
+        testObserver.assertValueCount(2);
+
+        verify(mRxCombiningTraining).searchItems(eq("abc"), eq(1));
+        verify(mRxCombiningTraining).searchItems(eq("abcd"), eq(1));
+        verify(mRxCombiningTraining, times(2)).searchItems(anyString(), anyInt());
+        assertEquals(2, latency.count());
+        assertEquals(220, latency.max(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void searchItems_index() {
+        RxCombiningTraining training = new RxCombiningTraining();
+        training.addItem("Apple", 1);
+        int pineappleId = training.addItem("Pineapple", 1);
+        training.addItem("Apple pie", 2);
+        training.addItem("Grape", 1);
+
+        assertEquals(Arrays.asList("Apple", "Pineapple"), training.searchItems("apple", 1));
+        assertEquals(Arrays.asList("Apple", "Pineapple", "Grape"), training.searchItems("p", 1));
+        assertEquals(Collections.singletonList("Apple pie"), training.searchItems("PIE", 2));
+        assertEquals(Collections.emptyList(), training.searchItems("pie", 1));
+
+        assertTrue(training.removeItem(pineappleId));
+        assertFalse(training.removeItem(pineappleId));
+        assertEquals(Collections.singletonList("Apple"), training.searchItems("apple", 1));
+    }
+
+    @Test
+    public void searchItems_indexMatchesBruteForce() {
+        RxCombiningTraining training = new RxCombiningTraining();
+        Random random = new Random(19);
+        // Идентификатор -> строка и категория, перебором по возрастанию идентификатора
+        TreeMap<Integer, String> items = new TreeMap<>();
+        TreeMap<Integer, Integer> categories = new TreeMap<>();
+        String alphabet = "aabAB";
+
+        // Сначала индекс растёт, потом почти весь удаляется: длинные списки триграмм пересекаются с
+        // короткими, а опустевшие списки сжимаются
+        for (int step = 0; step < 6000; step++) {
+            boolean growing = step < 3000;
+            if (items.isEmpty() || random.nextInt(10) < (growing ? 8 : 2)) {
+                String item = randomString(random, alphabet, random.nextInt(15));
+                int categoryId = random.nextInt(3);
+                int id = training.addItem(item, categoryId);
+                assertFalse(items.containsKey(id));
+                items.put(id, item);
+                categories.put(id, categoryId);
+            } else {
+                Integer id = items.ceilingKey(random.nextInt(items.lastKey() + 1));
+                assertTrue(training.removeItem(id));
+                items.remove(id);
+                categories.remove(id);
+            }
+
+            if (step % 7 == 0) {
+                String searchString = randomString(random, alphabet, random.nextInt(7));
+                int categoryId = random.nextInt(3);
+                List<String> expected = new ArrayList<>();
+                for (Map.Entry<Integer, String> entry : items.entrySet()) {
+                    if (categories.get(entry.getKey()) == categoryId && entry.getValue().toLowerCase(Locale.ROOT)
+                            .contains(searchString.toLowerCase(Locale.ROOT))) {
+                        expected.add(entry.getValue());
+                    }
+                }
+                assertEquals(searchString, expected, training.searchItems(searchString, categoryId));
+            }
+        }
+    }
+
+    @Test
+    public void searchItems_reusesRemovedIds() {
+        RxCombiningTraining training = new RxCombiningTraining();
+        int maxId = 0;
+        for (int i = 0; i < 1000; i++) {
+            int id = training.addItem("item" + i, 1);
+            maxId = Math.max(maxId, id);
+            assertTrue(training.removeItem(id));
+        }
+        assertEquals(0, maxId);
+
+        int first = training.addItem("Apple", 1);
+        int second = training.addItem("Pineapple", 1);
+        assertTrue(training.removeItem(first));
+        assertEquals(first, training.addItem("Grape", 1));
+        assertEquals(Collections.singletonList("Pineapple"), training.searchItems("apple", 1));
+        assertEquals(Arrays.asList("Grape", "Pineapple"), training.searchItems("ap", 1));
+        assertTrue(training.removeItem(second));
+    }
+
+    @Test
+    public void requestItems_cacheInvalidatedByIndexChange() throws Exception {
+        RxCombiningTraining training = new RxCombiningTraining();
+        training.addItem("Apple", 1);
+        int grapeId = training.addItem("Grape", 1);
+        PrefixSearchCache cache = training.createSearchCache(100);
+
+        assertEquals(Arrays.asList("Apple", "Grape"), cache.search("ap", 1));
+        assertEquals(Arrays.asList("Apple", "Grape"), cache.search("ap", 1));
+        assertEquals(1, cache.hits());
+
+        training.addItem("Pineapple", 1);
+        assertEquals(Arrays.asList("Apple", "Grape", "Pineapple"), cache.search("ap", 1));
+        assertEquals(Arrays.asList("Apple", "Pineapple"), cache.search("app", 1));
+
+        training.removeItem(grapeId);
+        assertEquals(Arrays.asList("Apple", "Pineapple"), cache.search("ap", 1));
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.narrowed());
+        assertEquals(3, cache.misses());
+    }
+
+    private static String randomString(Random random, String alphabet, int length) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return builder.toString();
+    }
+
     @Test
     public void composition() {
         TestObserver<Integer> testObserver = mRxCombiningTraining.composition(
@@ -155,6 +513,32 @@ public class RxCombiningTrainingTest {
         testObserver.assertComplete();
     }
 
+    @Test
+    public void composition_fairBoundedMerge() {
+        AtomicInteger floodEmitted = new AtomicInteger();
+        LatencyMetrics floodLatency = new LatencyMetrics();
+        LatencyMetrics rareLatency = new LatencyMetrics();
+
+        TestSubscriber<Integer> testSubscriber = mRxCombiningTraining.composition(
+                Flowable.range(0, 1000).doOnNext(value -> floodEmitted.incrementAndGet()),
+                Flowable.range(1000, 3),
+                8,
+                floodLatency,
+                rareLatency)
+                .test(0);
+
+        assertEquals(8, floodEmitted.get());
+
+        testSubscriber.request(7);
+        testSubscriber.assertValues(0, 1000, 1, 1001, 2, 1002, 3);
+        assertEquals(4, floodLatency.count());
+        assertEquals(3, rareLatency.count());
+
+        testSubscriber.request(Long.MAX_VALUE);
+        testSubscriber.assertValueCount(1003);
+        testSubscriber.assertComplete();
+    }
+
     @Test
     public void additionalFirstItem() {
         TestObserver<Integer> testObserver = mRxCombiningTraining
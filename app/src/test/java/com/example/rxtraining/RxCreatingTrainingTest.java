@@ -1,24 +1,34 @@
 package com.example.rxtraining;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 import com.example.rxtraining.exceptions.ExpectedException;
 import com.example.rxtraining.rx.RxCreatingTraining;
+import com.example.rxtraining.rx.operators.MemoizedValue;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import io.reactivex.Observable;
 import io.reactivex.Scheduler;
 import io.reactivex.functions.Function;
 import io.reactivex.observers.TestObserver;
 import io.reactivex.plugins.RxJavaPlugins;
+import io.reactivex.schedulers.Schedulers;
 import io.reactivex.schedulers.TestScheduler;
 
 /**
@@ -83,6 +93,98 @@ public class RxCreatingTrainingTest {
         testObserver.assertValueCount(1);
     }
 
+    @Test
+    public void expensiveMethodResult_memoized() {
+        MemoizedValue<Integer> memo = mRxCreatingTraining.createExpensiveMethodMemo(1000, 500);
+        Observable<Integer> observable = mRxCreatingTraining.expensiveMethodResult(memo);
+        verify(mRxCreatingTraining, never()).expensiveMethod();
+
+        observable.test().assertValue(Integer.MAX_VALUE);
+        observable.test().assertValue(Integer.MAX_VALUE);
+        verify(mRxCreatingTraining, times(1)).expensiveMethod();
+
+        // Устаревший результат отдаётся сразу, новый вычисляется в фоне один раз
+        mTestScheduler.advanceTimeBy(1200, TimeUnit.MILLISECONDS);
+        observable.test().assertValue(Integer.MAX_VALUE);
+        observable.test().assertValue(Integer.MAX_VALUE);
+        verify(mRxCreatingTraining, times(1)).expensiveMethod();
+        mTestScheduler.triggerActions();
+        verify(mRxCreatingTraining, times(2)).expensiveMethod();
+        assertEquals(2, memo.staleHits());
+
+        // Слишком старый результат не отдаётся, подписчик ждёт вычисления
+        mTestScheduler.advanceTimeBy(2000, TimeUnit.MILLISECONDS);
+        observable.test().assertValue(Integer.MAX_VALUE);
+        verify(mRxCreatingTraining, times(3)).expensiveMethod();
+        assertEquals(2, memo.staleHits());
+        assertEquals(1, memo.hits());
+        assertEquals(3, memo.loads());
+    }
+
+    @Test
+    public void expensiveMethodResult_memoizedSingleFlight() throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        // Вычисление блокируется, пока его не отпустят: второй подписчик приходит во время него.
+        // Без объединения второй подписчик запустил бы своё вычисление и ждал бы его до таймаута
+        MemoizedValue<Integer> memo = new MemoizedValue<>(new Callable<Integer>() {
+            @Override
+            public Integer call() throws InterruptedException {
+                started.countDown();
+                release.await(1, TimeUnit.SECONDS);
+                return mRxCreatingTraining.expensiveMethod();
+            }
+        }, 1000, 0, TimeUnit.MILLISECONDS, mTestScheduler);
+        Observable<Integer> observable = mRxCreatingTraining.expensiveMethodResult(memo);
+
+        TestObserver<Integer> first = observable.subscribeOn(Schedulers.newThread()).test();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        TestObserver<Integer> second = observable.test();
+        second.assertNoValues();
+        release.countDown();
+
+        assertTrue(first.awaitTerminalEvent(5, TimeUnit.SECONDS));
+        assertTrue(second.awaitTerminalEvent(5, TimeUnit.SECONDS));
+        first.assertResult(Integer.MAX_VALUE);
+        second.assertResult(Integer.MAX_VALUE);
+        assertEquals(1, memo.loads());
+        verify(mRxCreatingTraining, times(1)).expensiveMethod();
+    }
+
+    @Test
+    public void expensiveMethodResult_memoizedInvalidateDuringLoad() throws InterruptedException {
+        final AtomicInteger calls = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        // Первое вычисление блокируется, следующие выполняются сразу
+        MemoizedValue<Integer> memo = new MemoizedValue<>(new Callable<Integer>() {
+            @Override
+            public Integer call() throws InterruptedException {
+                int call = calls.incrementAndGet();
+                if (call == 1) {
+                    started.countDown();
+                    release.await(1, TimeUnit.SECONDS);
+                }
+                return call;
+            }
+        }, 1000, 0, TimeUnit.MILLISECONDS, mTestScheduler);
+
+        TestObserver<Integer> first = memo.get().subscribeOn(Schedulers.newThread()).test();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        memo.invalidate();
+
+        // После сброса выполняющееся вычисление не переиспользуется
+        memo.get().test().assertResult(2);
+        release.countDown();
+        assertTrue(first.awaitTerminalEvent(5, TimeUnit.SECONDS));
+        first.assertResult(1);
+
+        // Результат вычисления, начатого до сброса, не запомнен
+        memo.get().test().assertResult(2);
+        assertEquals(2, memo.loads());
+        assertEquals(1, memo.hits());
+    }
+
     @Test
     public void increasingSequenceWithDelays() {
         TestObserver<Long> testObserver = new TestObserver<>();
@@ -177,6 +279,62 @@ public class RxCreatingTrainingTest {
         testObserver.assertComplete();
     }
 
+    @Test
+    public void combinationExpensiveMethodsParallel_withoutError() {
+        TestObserver<Integer> testObserver = new TestObserver<>();
+        Observable<Integer> observable = mRxCreatingTraining.combinationExpensiveMethodsParallel(false);
+
+        observable.subscribe(testObserver);
+
+        verify(mRxCreatingTraining, never()).expensiveMethod();
+        verify(mRxCreatingTraining, never()).alternativeExpensiveMethod();
+        verify(mRxCreatingTraining, never()).unstableMethod(anyBoolean());
+
+        mTestScheduler.triggerActions();
+
+        verify(mRxCreatingTraining).expensiveMethod();
+        verify(mRxCreatingTraining).alternativeExpensiveMethod();
+        verify(mRxCreatingTraining).unstableMethod(anyBoolean());
+
+        testObserver.assertValueCount(1);
+        testObserver.assertNoErrors();
+        testObserver.assertComplete();
+    }
+
+    @Test
+    public void combinationExpensiveMethodsParallel_withError() {
+        // Отдельный планировщик на каждый вызов: методы выполняются в любом порядке
+        final List<TestScheduler> schedulers = new ArrayList<>();
+        RxJavaPlugins.setComputationSchedulerHandler(new Function<Scheduler, Scheduler>() {
+            @Override
+            public Scheduler apply(Scheduler scheduler) {
+                TestScheduler testScheduler = new TestScheduler();
+                schedulers.add(testScheduler);
+                return testScheduler;
+            }
+        });
+        TestObserver<Integer> testObserver = new TestObserver<>();
+        mRxCreatingTraining.combinationExpensiveMethodsParallel(true)
+                .subscribe(testObserver);
+        assertEquals(3, schedulers.size());
+
+        // Один из стабильных методов успел выполниться до ошибки
+        schedulers.get(1).triggerActions();
+        verify(mRxCreatingTraining).expensiveMethod();
+        testObserver.assertNoValues();
+        testObserver.assertNoErrors();
+
+        schedulers.get(0).triggerActions();
+        verify(mRxCreatingTraining).unstableMethod(anyBoolean());
+        testObserver.assertNoValues();
+        testObserver.assertError(ExpectedException.class);
+
+        // Оставшееся вычисление отменено: его задача снята с планировщика
+        schedulers.get(2).triggerActions();
+        verify(mRxCreatingTraining, never()).alternativeExpensiveMethod();
+        testObserver.assertNoValues();
+    }
+
     @Test
     public void withoutAnyEvents() {
         TestObserver<Integer> testObserver = new TestObserver<>();
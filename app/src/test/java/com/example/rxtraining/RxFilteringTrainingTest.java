@@ -1,15 +1,22 @@
 package com.example.rxtraining;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
 import static org.mockito.Mockito.reset;
 
 import com.example.rxtraining.rx.RxFilteringTraining;
+import com.example.rxtraining.rx.primitive.IntObservable;
+import com.example.rxtraining.util.IntBloomFilter;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import io.reactivex.Observable;
 import io.reactivex.ObservableEmitter;
@@ -19,6 +26,7 @@ import io.reactivex.functions.Function;
 import io.reactivex.observers.TestObserver;
 import io.reactivex.plugins.RxJavaPlugins;
 import io.reactivex.schedulers.TestScheduler;
+import io.reactivex.subjects.PublishSubject;
 
 /**
  * @author Arthur Korchagin (artur.korchagin@simbirsoft.com)
@@ -75,6 +83,20 @@ public class RxFilteringTrainingTest {
         testObserver.assertValues(4, 5);
     }
 
+    @Test
+    public void onlyLastValues_singleSubscription() {
+        final AtomicInteger subscriptions = new AtomicInteger();
+        TestObserver<Integer> testObserver = mRxFilteringTraining
+                .onlyLastValues(3, Observable.range(1, 10_000)
+                        .doOnSubscribe(disposable -> subscriptions.incrementAndGet()))
+                .test();
+
+        testObserver.assertNoErrors();
+        testObserver.assertComplete();
+        testObserver.assertValues(9_998, 9_999, 10_000);
+        assertEquals(1, subscriptions.get());
+    }
+
     @Test
     public void onlyFirstValues_countMoreThenValues() {
         TestObserver<Integer> testObserver = mRxFilteringTraining
@@ -212,6 +234,140 @@ public class RxFilteringTrainingTest {
         testObserver.assertValues(2, 1, 3, 6, 4, 5);
     }
 
+    @Test
+    public void ignoreDuplicates_largeRange() {
+        TestObserver<Integer> testObserver = mRxFilteringTraining
+                .ignoreDuplicates(Observable.range(-50_000, 100_000).concatWith(Observable.range(-50_000, 100_000)))
+                .test();
+
+        testObserver.assertNoErrors();
+        testObserver.assertComplete();
+        testObserver.assertValueCount(100_000);
+    }
+
+    @Test
+    public void ignoreDuplicates_bounded() {
+        TestObserver<Integer> testObserver = mRxFilteringTraining
+                .ignoreDuplicates(2, Observable.fromArray(1, 2, 1, 3, 1, 2))
+                .test();
+
+        testObserver.assertNoErrors();
+        testObserver.assertComplete();
+        testObserver.assertValues(1, 2, 3, 2);
+    }
+
+    @Test
+    public void ignoreDuplicates_approximate() {
+        final AtomicReference<IntBloomFilter> created = new AtomicReference<>();
+        TestObserver<Integer> testObserver = mRxFilteringTraining
+                .ignoreDuplicates(bloomFilters(100_000, created),
+                        Observable.range(0, 100_000).concatWith(Observable.range(0, 100_000)))
+                .test();
+        IntBloomFilter filter = created.get();
+
+        testObserver.assertNoErrors();
+        testObserver.assertComplete();
+        assertEquals(100_000, testObserver.valueCount(), 100_000 * 0.01);
+        assertEquals(0.5, filter.fillRatio(), 0.05);
+        assertEquals(0.01, filter.expectedFalsePositiveRate(), 0.005);
+        assertEquals(0, filter.generation());
+    }
+
+    @Test
+    public void ignoreDuplicates_approximateRotation() {
+        final AtomicReference<IntBloomFilter> created = new AtomicReference<>();
+        TestObserver<Integer> testObserver = mRxFilteringTraining
+                .ignoreDuplicates(bloomFilters(1_000, created),
+                        Observable.range(0, 3_000).concatWith(Observable.range(0, 1_000)))
+                .test();
+
+        testObserver.assertNoErrors();
+        testObserver.assertComplete();
+        assertEquals(3, created.get().generation());
+        assertEquals(4_000, testObserver.valueCount(), 4_000 * 0.02);
+    }
+
+    @Test
+    public void ignoreDuplicates_approximateResubscribe() {
+        final AtomicReference<IntBloomFilter> created = new AtomicReference<>();
+        Observable<Integer> observable = mRxFilteringTraining
+                .ignoreDuplicates(bloomFilters(1_000, created), Observable.range(0, 2_500));
+
+        int firstCount = observable.test().assertComplete().valueCount();
+        assertEquals(2_500, firstCount, 2_500 * 0.02);
+        IntBloomFilter first = created.get();
+        assertEquals(2, first.generation());
+
+        // Повторная подписка начинает с нового пустого фильтра и пропускает те же значения
+        observable.test().assertComplete().assertValueCount(firstCount);
+        assertNotSame(first, created.get());
+        assertEquals(2, created.get().generation());
+    }
+
+    @Test
+    public void ignoreDuplicates_approximateConcurrentSubscriptions() {
+        PublishSubject<Integer> values = PublishSubject.create();
+        Observable<Integer> observable = mRxFilteringTraining
+                .ignoreDuplicates(bloomFilters(1_000, new AtomicReference<>()), values);
+
+        TestObserver<Integer> first = observable.test();
+        values.onNext(1);
+        values.onNext(2);
+        TestObserver<Integer> second = observable.test();
+        values.onNext(1);
+        values.onNext(3);
+        values.onComplete();
+
+        first.assertResult(1, 2, 3);
+        // Фильтр второй подписки не видел значений первой
+        second.assertResult(1, 3);
+    }
+
+    private static Callable<IntBloomFilter> bloomFilters(final int insertions,
+                                                         final AtomicReference<IntBloomFilter> created) {
+        return new Callable<IntBloomFilter>() {
+            @Override
+            public IntBloomFilter call() {
+                IntBloomFilter filter = new IntBloomFilter(insertions, 0.01);
+                created.set(filter);
+                return filter;
+            }
+        };
+    }
+
+    @Test
+    public void intObservable_filteringOperators() {
+        IntObservable values = IntObservable.fromObservable(Observable.fromArray(2, -1, 2, 2, 3, -6, 4, 5, 5, 6));
+
+        mRxFilteringTraining.onlyPositiveNumbers(values).toObservable().test()
+                .assertResult(2, 2, 2, 3, 4, 5, 5, 6);
+        mRxFilteringTraining.onlyLastValues(2, values).toObservable().test()
+                .assertResult(5, 6);
+        mRxFilteringTraining.onlyFirstValues(2, values).toObservable().test()
+                .assertResult(2, -1);
+        mRxFilteringTraining.ignoreFirstValues(7, values).toObservable().test()
+                .assertResult(5, 5, 6);
+        mRxFilteringTraining.ignoreDuplicates(values).toObservable().test()
+                .assertResult(2, -1, 3, -6, 4, 5, 6);
+        mRxFilteringTraining.onlyChangedValues(values).toObservable().test()
+                .assertResult(2, -1, 2, 3, -6, 4, 5, 6);
+    }
+
+    @Test
+    public void intObservable_takeCancelsUpstream() {
+        final AtomicInteger emitted = new AtomicInteger();
+        TestObserver<Integer> testObserver = mRxFilteringTraining
+                .onlyFirstValues(3, IntObservable.range(0, 1_000_000).map(value -> {
+                    emitted.incrementAndGet();
+                    return value;
+                }))
+                .toObservable()
+                .test();
+
+        testObserver.assertResult(0, 1, 2);
+        assertEquals(3, emitted.get());
+    }
+
     @Test
     public void onlyChangedValues() {
         TestObserver<Integer> testObserver = mRxFilteringTraining
@@ -3,6 +3,7 @@ package com.example.rxtraining;
 import static org.mockito.Mockito.reset;
 
 import com.example.rxtraining.rx.RxMaybeTraining;
+import com.example.rxtraining.rx.primitive.IntObservable;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -126,4 +127,12 @@ public class RxMaybeTrainingTest {
         testObserver.assertNoErrors();
         testObserver.assertComplete();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void calculateSumOfValues_intObservable() {
+        mRxMaybeTraining.calculateSumOfValues(IntObservable.fromArray(1, 2, 3)).test()
+                .assertResult(6);
+        mRxMaybeTraining.calculateSumOfValues(IntObservable.fromArray()).test()
+                .assertResult();
+    }
+}
@@ -1,9 +1,13 @@
 package com.example.rxtraining;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.reset;
 
 import com.example.rxtraining.exceptions.ExpectedException;
 import com.example.rxtraining.rx.RxSingleTraining;
+import com.example.rxtraining.rx.primitive.IntObservable;
+import com.example.rxtraining.util.IntArrayList;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -12,6 +16,7 @@ import org.mockito.Mockito;
 import java.util.Arrays;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import io.reactivex.Observable;
 import io.reactivex.Scheduler;
@@ -94,6 +99,41 @@ public class RxSingleTrainingTest {
         testObserver.assertValues(6);
     }
 
+    @Test
+    public void calculateSumOfValues_parallel() {
+        TestObserver<Long> testObserver = mRxSingleTraining
+                .calculateSumOfValues(Observable.range(1, 10_000).concatWith(Observable.just(Integer.MAX_VALUE, Integer.MAX_VALUE)), 4)
+                .test();
+
+        mTestScheduler.triggerActions();
+
+        testObserver.assertNoErrors();
+        testObserver.assertComplete();
+        testObserver.assertValues(50_005_000L + 2L * Integer.MAX_VALUE);
+    }
+
+    @Test
+    public void calculateSumOfValues_parallelEmpty() {
+        TestObserver<Long> testObserver = mRxSingleTraining
+                .calculateSumOfValues(Observable.<Integer>empty(), 4)
+                .test();
+
+        mTestScheduler.triggerActions();
+
+        testObserver.assertResult(0L);
+    }
+
+    @Test
+    public void calculateSumOfValues_intObservable() {
+        TestObserver<Integer> testObserver = mRxSingleTraining
+                .calculateSumOfValues(IntObservable.fromArray(1, 2, 3))
+                .test();
+
+        testObserver.assertNoErrors();
+        testObserver.assertComplete();
+        testObserver.assertValues(6);
+    }
+
     @Test
     public void collectionOfValues() {
         TestObserver<List<Integer>> testObserver = mRxSingleTraining
@@ -102,7 +142,36 @@ public class RxSingleTrainingTest {
 
         testObserver.assertNoErrors();
         testObserver.assertComplete();
-        testObserver.assertValues(Arrays.asList(1, 2, 3));
+        testObserver.assertValue(Arrays.asList(1, 2, 3));
+    }
+
+    @Test
+    public void collectionOfValues_capacityHint() {
+        mRxSingleTraining.collectionOfValues(Observable.fromArray(1, 2, 3), 3).test()
+                .assertValue(Arrays.asList(1, 2, 3))
+                .assertComplete();
+    }
+
+    @Test
+    public void compactCollectionOfValues() {
+        TestObserver<List<Integer>> testObserver = mRxSingleTraining
+                .compactCollectionOfValues(Observable.range(0, 1_000), 16)
+                .test();
+
+        testObserver.assertNoErrors();
+        testObserver.assertComplete();
+        List<Integer> values = testObserver.values().get(0);
+        assertTrue(values instanceof IntArrayList);
+        assertEquals(1_000, values.size());
+        assertEquals(Integer.valueOf(999), values.get(999));
+        assertEquals(Observable.range(0, 1_000).toList().blockingGet(), values);
+    }
+
+    @Test
+    public void collectionOfValues_intObservable() {
+        mRxSingleTraining.collectionOfValues(IntObservable.fromArray(1, 2, 3)).test()
+                .assertValue(Arrays.asList(1, 2, 3))
+                .assertComplete();
     }
 
     @Test
@@ -116,6 +185,32 @@ public class RxSingleTrainingTest {
         testObserver.assertValues(true);
     }
 
+    @Test
+    public void allElementsIsPositive_parallel() {
+        TestObserver<Boolean> positiveObserver = mRxSingleTraining
+                .allElementsIsPositive(Observable.range(1, 10_000), 4)
+                .test();
+        final AtomicBoolean cancelled = new AtomicBoolean();
+        TestObserver<Boolean> negativeObserver = mRxSingleTraining
+                .allElementsIsPositive(Observable.range(-5_000, 10_000)
+                        .doOnDispose(() -> cancelled.set(true)), 4)
+                .test();
+
+        mTestScheduler.triggerActions();
+
+        positiveObserver.assertResult(true);
+        negativeObserver.assertResult(false);
+        assertTrue(cancelled.get());
+    }
+
+    @Test
+    public void allElementsIsPositive_intObservable() {
+        mRxSingleTraining.allElementsIsPositive(IntObservable.fromArray(1, 2, 3)).test()
+                .assertResult(true);
+        mRxSingleTraining.allElementsIsPositive(IntObservable.fromArray(1, -2, 3)).test()
+                .assertResult(false);
+    }
+
     @Test
     public void allElementsIsPositive_false() {
         TestObserver<Boolean> testObserver = mRxSingleTraining
@@ -1,24 +1,58 @@
 package com.example.rxtraining;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.reset;
 import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
 
 import com.example.rxtraining.entity.Entity;
+import com.example.rxtraining.entity.EntityInterner;
+import com.example.rxtraining.exceptions.ExpectedException;
 import com.example.rxtraining.rx.RxTransformingTraining;
+import com.example.rxtraining.rx.RxTransformingTrainingAccess;
+import com.example.rxtraining.rx.operators.InFlightMetrics;
+import com.example.rxtraining.rx.operators.KeyAffinityLanes;
+import com.example.rxtraining.rx.operators.LoadingCache;
+import com.example.rxtraining.rx.operators.RequestCollapser;
+import com.example.rxtraining.rx.operators.SingleFlight;
+import com.example.rxtraining.util.IntChunk;
+import com.example.rxtraining.util.IntChunkPool;
+import com.example.rxtraining.util.IntChunkWriter;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import io.reactivex.Flowable;
 import io.reactivex.Observable;
 import io.reactivex.ObservableSource;
+import io.reactivex.Scheduler;
+import io.reactivex.functions.Action;
+import io.reactivex.functions.Consumer;
 import io.reactivex.functions.Function;
+import io.reactivex.functions.LongConsumer;
 import io.reactivex.observables.GroupedObservable;
 import io.reactivex.observers.TestObserver;
+import io.reactivex.plugins.RxJavaPlugins;
+import io.reactivex.schedulers.TestScheduler;
+import io.reactivex.subjects.PublishSubject;
+import io.reactivex.subscribers.TestSubscriber;
 
 /**
  * @author Arthur Korchagin (artur.korchagin@simbirsoft.com)
@@ -27,10 +61,18 @@ import io.reactivex.observers.TestObserver;
 public class RxTransformingTrainingTest {
 
     private RxTransformingTraining mRxTransformingTraining = Mockito.spy(new RxTransformingTraining());
+    private TestScheduler mTestScheduler;
 
     @Before
     public void setUp() {
         reset(mRxTransformingTraining);
+        mTestScheduler = new TestScheduler();
+        RxJavaPlugins.setComputationSchedulerHandler(new Function<Scheduler, Scheduler>() {
+            @Override
+            public Scheduler apply(Scheduler scheduler) {
+                return mTestScheduler;
+            }
+        });
     }
 
     @Test
@@ -61,6 +103,368 @@ public class RxTransformingTrainingTest {
         testObservable.assertValues(testEntitiesValues);
     }
 
+    @Test
+    public void requestEntityById_boundedInFlight() {
+        for (boolean preserveOrder : new boolean[]{true, false}) {
+            final Map<Integer, PublishSubject<Entity>> requests = new HashMap<>();
+            RxTransformingTrainingAccess.stubRequestApiEntity(mRxTransformingTraining, new Answer<Observable<Entity>>() {
+                @Override
+                public Observable<Entity> answer(InvocationOnMock invocation) {
+                    PublishSubject<Entity> request = PublishSubject.create();
+                    requests.put(invocation.<Integer>getArgument(0), request);
+                    return request;
+                }
+            });
+            InFlightMetrics metrics = new InFlightMetrics();
+
+            TestObserver<Entity> testObservable = mRxTransformingTraining
+                    .requestEntityById(Observable.fromArray(0, 1, 2, 3, 4), 2, preserveOrder, metrics)
+                    .test();
+
+            // Выполняются ровно maxInFlight запросов, остальные ждут в очереди
+            assertEquals(asList(0, 1), new ArrayList<>(new TreeSet<>(requests.keySet())));
+            assertTrue(requests.get(0).hasObservers());
+            assertTrue(requests.get(1).hasObservers());
+            assertEquals(2, metrics.inFlight());
+            assertEquals(3, metrics.queued());
+
+            // Завершение запроса запускает следующий из очереди
+            requests.get(0).onNext(new Entity(0));
+            requests.get(0).onComplete();
+            assertEquals(asList(0, 1, 2), new ArrayList<>(new TreeSet<>(requests.keySet())));
+            assertTrue(requests.get(2).hasObservers());
+            assertEquals(2, metrics.inFlight());
+            assertEquals(2, metrics.queued());
+            testObservable.assertValues(new Entity(0));
+
+            // При отписке выполняющиеся запросы отменяются, а ожидающие снимаются с очереди
+            testObservable.dispose();
+            assertFalse(requests.get(1).hasObservers());
+            assertFalse(requests.get(2).hasObservers());
+            assertEquals(3, requests.size());
+            assertEquals(0, metrics.inFlight());
+            assertEquals(0, metrics.queued());
+            assertEquals(3, metrics.started());
+            assertEquals(2, metrics.maxInFlight());
+
+            reset(mRxTransformingTraining);
+        }
+    }
+
+    @Test
+    public void requestEntityById_collapsed() {
+        RequestCollapser<Entity> collapser = mRxTransformingTraining.createEntityCollapser(4, 10);
+
+        TestObserver<Entity> testObservable = mRxTransformingTraining
+                .requestEntityById(Observable.range(0, 10), collapser)
+                .test();
+
+        testObservable.assertValueCount(8);
+        assertEquals(2, collapser.batchCount());
+
+        mTestScheduler.advanceTimeBy(10, TimeUnit.MILLISECONDS);
+
+        testObservable.assertComplete();
+        testObservable.assertNoErrors();
+        testObservable.assertValueSet(Observable.range(0, 10)
+                .map(new Function<Integer, Entity>() {
+                    @Override
+                    public Entity apply(Integer id) {
+                        return new Entity(id);
+                    }
+                })
+                .toList()
+                .blockingGet());
+        assertEquals(10, collapser.requestCount());
+        assertEquals(3, collapser.batchCount());
+    }
+
+    @Test
+    public void requestEntityById_collapsedInterned() {
+        RequestCollapser<Entity> collapser = mRxTransformingTraining.createEntityCollapser(10, 10);
+
+        TestObserver<Entity> first = mRxTransformingTraining
+                .requestEntityById(Observable.just(1), collapser)
+                .test();
+        mTestScheduler.advanceTimeBy(10, TimeUnit.MILLISECONDS);
+        TestObserver<Entity> second = mRxTransformingTraining
+                .requestEntityById(Observable.just(1), collapser)
+                .test();
+        mTestScheduler.advanceTimeBy(10, TimeUnit.MILLISECONDS);
+
+        assertSame(first.values().get(0), second.values().get(0));
+        assertSame(Entity.of(1), first.values().get(0));
+    }
+
+    @Test
+    public void requestApiEntity_interned() {
+        Entity entity = RxTransformingTrainingAccess.requestApiEntity(mRxTransformingTraining, 5).blockingSingle();
+
+        assertSame(Entity.of(5), entity);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void entityConfigureInterner_afterFirstUse() {
+        Entity.of(0);
+
+        Entity.configureInterner(0, 16, 16);
+    }
+
+    @Test
+    public void entityInterner_hotRangeSameInstance() {
+        EntityInterner interner = new EntityInterner(100, 10, 2);
+
+        Entity entity = interner.of(100);
+
+        assertSame(entity, interner.of(100));
+        assertSame(interner.of(109), interner.of(109));
+        assertSame(entity, interner.intern(new Entity(100)));
+    }
+
+    @Test
+    public void entityInterner_coldRangeLru() {
+        EntityInterner interner = new EntityInterner(100, 10, 2);
+
+        Entity low = interner.of(99);
+        Entity high = interner.of(110);
+
+        assertSame(low, interner.of(99));
+        assertSame(high, interner.of(110));
+        assertSame(low, interner.intern(new Entity(99)));
+    }
+
+    @Test
+    public void entityInterner_coldEvictedOverCapacity() {
+        EntityInterner interner = new EntityInterner(100, 10, 2);
+
+        Entity first = interner.of(1);
+        Entity second = interner.of(2);
+        interner.of(1);
+        // Вытесняет давно не использованную сущность 2
+        interner.of(3);
+
+        assertSame(first, interner.of(1));
+        Entity evicted = interner.of(2);
+        assertNotSame(second, evicted);
+        assertEquals(second, evicted);
+        // Горячий диапазон не вытесняется
+        Entity hot = interner.of(105);
+        interner.of(4);
+        interner.of(5);
+        interner.of(6);
+        assertSame(hot, interner.of(105));
+    }
+
+    @Test
+    public void requestEntityById_collapsedDuplicates() {
+        RequestCollapser<Entity> collapser = mRxTransformingTraining.createEntityCollapser(10, 10);
+
+        TestObserver<Entity> first = mRxTransformingTraining
+                .requestEntityById(Observable.fromArray(1, 2), collapser)
+                .test();
+        TestObserver<Entity> second = mRxTransformingTraining
+                .requestEntityById(Observable.fromArray(2, 1, 1), collapser)
+                .test();
+
+        mTestScheduler.advanceTimeBy(10, TimeUnit.MILLISECONDS);
+
+        first.assertValueSet(asList(new Entity(1), new Entity(2)));
+        first.assertComplete();
+        second.assertValueCount(3);
+        second.assertComplete();
+        assertEquals(1, collapser.batchCount());
+    }
+
+    @Test
+    public void requestEntityById_cached() {
+        LoadingCache<Entity> cache = mRxTransformingTraining.createEntityCache(2, 1_000, 0);
+
+        TestObserver<Entity> testObservable = mRxTransformingTraining
+                .requestEntityById(Observable.fromArray(1, 2, 1, 1, 3, 2), cache)
+                .test();
+
+        testObservable.assertResult(new Entity(1), new Entity(2), new Entity(1), new Entity(1),
+                new Entity(3), new Entity(2));
+        assertEquals(2, cache.hits());
+        assertEquals(4, cache.misses());
+        assertEquals(2, cache.evictions());
+    }
+
+    @Test
+    public void requestEntityById_cacheExpiration() {
+        LoadingCache<Entity> cache = mRxTransformingTraining.createEntityCache(10, 1_000, 200);
+
+        mRxTransformingTraining.requestEntityById(Observable.just(1), cache).test();
+        mTestScheduler.advanceTimeBy(500, TimeUnit.MILLISECONDS);
+        mRxTransformingTraining.requestEntityById(Observable.just(1), cache).test();
+        assertEquals(1, cache.hits());
+        assertEquals(0, cache.refreshes());
+
+        mTestScheduler.advanceTimeBy(400, TimeUnit.MILLISECONDS);
+        mRxTransformingTraining.requestEntityById(Observable.just(1), cache)
+                .test()
+                .assertResult(new Entity(1));
+        assertEquals(2, cache.hits());
+        assertEquals(1, cache.refreshes());
+
+        mTestScheduler.advanceTimeBy(999, TimeUnit.MILLISECONDS);
+        mRxTransformingTraining.requestEntityById(Observable.just(1), cache).test();
+        assertEquals(3, cache.hits());
+        assertEquals(1, cache.misses());
+
+        mTestScheduler.advanceTimeBy(1_000, TimeUnit.MILLISECONDS);
+        mRxTransformingTraining.requestEntityById(Observable.just(1), cache).test();
+        assertEquals(2, cache.misses());
+    }
+
+    @Test
+    public void requestEntityById_cacheRefreshOnScheduler() {
+        LoadingCache<Entity> cache = mRxTransformingTraining.createEntityCache(10, 1_000, 200);
+        mRxTransformingTraining.requestEntityById(Observable.just(1), cache).test();
+        Entity stale = Entity.of(1);
+        final Entity fresh = new Entity(1);
+        final AtomicInteger reloads = new AtomicInteger();
+        RxTransformingTrainingAccess.stubRequestApiEntity(mRxTransformingTraining, 1, Observable.fromCallable(() -> {
+            reloads.incrementAndGet();
+            return fresh;
+        }));
+
+        mTestScheduler.advanceTimeBy(850, TimeUnit.MILLISECONDS);
+        TestObserver<Entity> testObservable = mRxTransformingTraining
+                .requestEntityById(Observable.just(1), cache)
+                .test();
+
+        // Старое значение выдано сразу, перезагрузка ждёт планировщика
+        testObservable.assertResult(stale);
+        assertSame(stale, testObservable.values().get(0));
+        assertEquals(1, cache.refreshes());
+        assertEquals(0, reloads.get());
+
+        mTestScheduler.triggerActions();
+        assertEquals(1, reloads.get());
+        assertSame(fresh, mRxTransformingTraining.requestEntityById(Observable.just(1), cache).blockingSingle());
+    }
+
+    @Test
+    public void requestEntityById_cacheRefreshAfterEmptyReload() {
+        LoadingCache<Entity> cache = mRxTransformingTraining.createEntityCache(10, 1_000, 200);
+        mRxTransformingTraining.requestEntityById(Observable.just(1), cache).test();
+
+        RxTransformingTrainingAccess.stubRequestApiEntity(mRxTransformingTraining, 1, Observable.<Entity>empty());
+        mTestScheduler.advanceTimeBy(850, TimeUnit.MILLISECONDS);
+        mRxTransformingTraining.requestEntityById(Observable.just(1), cache)
+                .test()
+                .assertResult(new Entity(1));
+        assertEquals(1, cache.refreshes());
+        mTestScheduler.triggerActions();
+
+        // Перезагрузка без значения не блокирует следующую
+        mRxTransformingTraining.requestEntityById(Observable.just(1), cache)
+                .test()
+                .assertResult(new Entity(1));
+        assertEquals(2, cache.refreshes());
+    }
+
+    @Test
+    public void requestEntityById_singleFlight() {
+        final PublishSubject<Entity> response = PublishSubject.create();
+        final AtomicInteger calls = new AtomicInteger();
+        SingleFlight<Entity> singleFlight = new SingleFlight<>(new Function<Integer, Observable<Entity>>() {
+            @Override
+            public Observable<Entity> apply(Integer id) {
+                calls.incrementAndGet();
+                return response;
+            }
+        });
+
+        TestObserver<Entity> first = mRxTransformingTraining
+                .requestEntityById(Observable.just(1), singleFlight)
+                .test();
+        TestObserver<Entity> second = mRxTransformingTraining
+                .requestEntityById(Observable.just(1), singleFlight)
+                .test();
+        assertEquals(1, calls.get());
+        assertEquals(1, singleFlight.joined());
+
+        response.onNext(new Entity(1));
+        response.onComplete();
+
+        first.assertResult(new Entity(1));
+        second.assertResult(new Entity(1));
+        assertEquals(0, singleFlight.inFlight());
+    }
+
+    @Test
+    public void requestEntityById_singleFlightLateJoin() {
+        final PublishSubject<Entity> response = PublishSubject.create();
+        final AtomicInteger calls = new AtomicInteger();
+        final SingleFlight<Entity> singleFlight = new SingleFlight<>(new Function<Integer, Observable<Entity>>() {
+            @Override
+            public Observable<Entity> apply(Integer id) {
+                calls.incrementAndGet();
+                return response;
+            }
+        });
+        final TestObserver<Entity> late = new TestObserver<>();
+
+        // Подписка из doOnComplete попадает между завершением загрузки и удалением её из
+        // выполняющихся
+        TestObserver<Entity> first = mRxTransformingTraining
+                .requestEntityById(Observable.just(1), singleFlight)
+                .doOnComplete(new Action() {
+                    @Override
+                    public void run() {
+                        singleFlight.request(1).subscribe(late);
+                    }
+                })
+                .test();
+        response.onNext(new Entity(1));
+        response.onComplete();
+
+        first.assertResult(new Entity(1));
+        late.assertResult(new Entity(1));
+        assertEquals(1, calls.get());
+        assertEquals(1, singleFlight.started());
+        assertEquals(0, singleFlight.inFlight());
+    }
+
+    @Test
+    public void requestEntityById_singleFlightErrorAndCancel() {
+        final PublishSubject<Entity> failingResponse = PublishSubject.create();
+        final PublishSubject<Entity> cancelledResponse = PublishSubject.create();
+        SingleFlight<Entity> singleFlight = new SingleFlight<>(new Function<Integer, Observable<Entity>>() {
+            @Override
+            public Observable<Entity> apply(Integer id) {
+                return id == 1 ? failingResponse : cancelledResponse;
+            }
+        });
+
+        TestObserver<Entity> first = mRxTransformingTraining
+                .requestEntityById(Observable.just(1), singleFlight)
+                .test();
+        TestObserver<Entity> second = mRxTransformingTraining
+                .requestEntityById(Observable.just(1), singleFlight)
+                .test();
+        failingResponse.onError(new ExpectedException());
+
+        first.assertError(ExpectedException.class);
+        second.assertError(ExpectedException.class);
+        assertEquals(0, singleFlight.inFlight());
+
+        TestObserver<Entity> third = mRxTransformingTraining
+                .requestEntityById(Observable.just(2), singleFlight)
+                .test();
+        TestObserver<Entity> fourth = mRxTransformingTraining
+                .requestEntityById(Observable.just(2), singleFlight)
+                .test();
+        third.dispose();
+        assertTrue(cancelledResponse.hasObservers());
+        fourth.dispose();
+
+        assertFalse(cancelledResponse.hasObservers());
+        assertEquals(0, singleFlight.inFlight());
+    }
+
     @Test
     public void distributeNamesByFirstLetter() {
         String[] testNamesValues = {"00", "11", "11123", "22", "33", "34", "35"};
@@ -94,6 +498,174 @@ public class RxTransformingTrainingTest {
         testObservable.assertValueSequence(testPairsValues);
     }
 
+    @Test
+    public void distributeNamesByFirstLetter_idleEviction() {
+        PublishSubject<String> namesSubject = PublishSubject.create();
+        final List<TestObserver<String>> groups = new ArrayList<>();
+
+        TestObserver<Character> testObservable = mRxTransformingTraining
+                .distributeNamesByFirstLetter(100, namesSubject)
+                .map(new Function<GroupedObservable<Character, String>, Character>() {
+                    @Override
+                    public Character apply(GroupedObservable<Character, String> group) {
+                        groups.add(group.test());
+                        return group.getKey();
+                    }
+                })
+                .test();
+
+        namesSubject.onNext("Anna");
+        namesSubject.onNext("Boris");
+        mTestScheduler.advanceTimeBy(60, TimeUnit.MILLISECONDS);
+        namesSubject.onNext("Alex");
+        mTestScheduler.advanceTimeBy(60, TimeUnit.MILLISECONDS);
+
+        groups.get(0).assertValues("Anna", "Alex");
+        groups.get(0).assertNotComplete();
+        groups.get(1).assertResult("Boris");
+
+        namesSubject.onNext("Bob");
+        namesSubject.onComplete();
+
+        testObservable.assertResult('A', 'B', 'B');
+        groups.get(0).assertResult("Anna", "Alex");
+        groups.get(2).assertResult("Bob");
+    }
+
+    @Test
+    public void distributeNamesByFirstLetter_outerDisposedGroupAlive() {
+        PublishSubject<String> namesSubject = PublishSubject.create();
+
+        TestObserver<String> testObservable = mRxTransformingTraining
+                .distributeNamesByFirstLetter(namesSubject)
+                .take(1)
+                .flatMap(new Function<GroupedObservable<Character, String>, ObservableSource<String>>() {
+                    @Override
+                    public ObservableSource<String> apply(GroupedObservable<Character, String> group) {
+                        return group;
+                    }
+                })
+                .test();
+
+        namesSubject.onNext("Anna");
+        namesSubject.onNext("Boris");
+        namesSubject.onNext("Alex");
+        assertTrue(namesSubject.hasObservers());
+        namesSubject.onComplete();
+
+        testObservable.assertResult("Anna", "Alex");
+    }
+
+    @Test
+    public void distributeNamesByFirstLetter_upstreamDisposedWithLastGroup() {
+        PublishSubject<String> namesSubject = PublishSubject.create();
+        final List<TestObserver<String>> groups = new ArrayList<>();
+
+        TestObserver<Character> testObservable = mRxTransformingTraining
+                .distributeNamesByFirstLetter(namesSubject)
+                .map(new Function<GroupedObservable<Character, String>, Character>() {
+                    @Override
+                    public Character apply(GroupedObservable<Character, String> group) {
+                        groups.add(group.test());
+                        return group.getKey();
+                    }
+                })
+                .test();
+
+        namesSubject.onNext("Anna");
+        namesSubject.onNext("Boris");
+        testObservable.dispose();
+        assertTrue(namesSubject.hasObservers());
+
+        groups.get(0).dispose();
+        assertTrue(namesSubject.hasObservers());
+        namesSubject.onNext("Bob");
+        groups.get(1).assertValues("Boris", "Bob");
+
+        groups.get(1).dispose();
+        assertFalse(namesSubject.hasObservers());
+    }
+
+    @Test
+    public void processNamesByFirstLetter() {
+        KeyAffinityLanes lanes = new KeyAffinityLanes(4, 100, mTestScheduler);
+
+        TestSubscriber<String> testObservable = mRxTransformingTraining
+                .processNamesByFirstLetter(Flowable.fromArray("a1", "b1", "a2", "a3", "b2", "c1"), lanes,
+                        new Function<String, String>() {
+                            @Override
+                            public String apply(String name) {
+                                return name.toUpperCase();
+                            }
+                        })
+                .test();
+
+        testObservable.assertNoValues();
+        mTestScheduler.triggerActions();
+
+        testObservable.assertComplete();
+        testObservable.assertNoErrors();
+        testObservable.assertValueSet(asList("A1", "A2", "A3", "B1", "B2", "C1"));
+        List<String> values = testObservable.values();
+        assertTrue(values.indexOf("A1") < values.indexOf("A2"));
+        assertTrue(values.indexOf("A2") < values.indexOf("A3"));
+        assertTrue(values.indexOf("B1") < values.indexOf("B2"));
+        assertEquals(6, lanes.processed(0) + lanes.processed(1) + lanes.processed(2) + lanes.processed(3));
+        assertTrue(lanes.skew() >= 1);
+    }
+
+    @Test
+    public void processNamesByFirstLetter_sourceLargerThanLanes() {
+        KeyAffinityLanes lanes = new KeyAffinityLanes(2, 3, mTestScheduler);
+        final AtomicInteger requested = new AtomicInteger();
+        Flowable<String> names = Flowable.range(0, 1000)
+                .doOnRequest(new LongConsumer() {
+                    @Override
+                    public void accept(long n) {
+                        requested.addAndGet((int) Math.min(n, Integer.MAX_VALUE));
+                    }
+                })
+                .map(new Function<Integer, String>() {
+                    @Override
+                    public String apply(Integer i) {
+                        return "abcde".charAt(i % 5) + String.valueOf(i);
+                    }
+                });
+
+        TestSubscriber<String> testObservable = mRxTransformingTraining
+                .processNamesByFirstLetter(names, lanes,
+                        new Function<String, String>() {
+                            @Override
+                            public String apply(String name) {
+                                return name;
+                            }
+                        })
+                .test(0);
+
+        // Подписчик ничего не запросил: полосы заполнены, источник не выбран до конца
+        mTestScheduler.triggerActions();
+        testObservable.assertNoValues();
+        testObservable.assertNoErrors();
+        assertEquals(6, lanes.processed(0) + lanes.processed(1));
+        assertTrue(requested.get() < 1000);
+
+        testObservable.request(Long.MAX_VALUE);
+        mTestScheduler.triggerActions();
+
+        testObservable.assertComplete();
+        testObservable.assertNoErrors();
+        testObservable.assertValueCount(1000);
+        assertEquals(1000, lanes.processed(0) + lanes.processed(1));
+        assertTrue(lanes.maxQueued(0) <= 3);
+        assertTrue(lanes.maxQueued(1) <= 3);
+        List<String> values = testObservable.values();
+        for (int i = 5; i < 1000; i++) {
+            String name = "abcde".charAt(i % 5) + String.valueOf(i);
+            String previous = "abcde".charAt(i % 5) + String.valueOf(i - 5);
+            assertTrue(values.indexOf(previous) < values.indexOf(name));
+        }
+    }
+
     @Test
     public void collectsIntsToLists() {
         Integer[] testIntsValues = {0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10};
@@ -112,4 +684,149 @@ public class RxTransformingTrainingTest {
         testObservable.assertValueSequence(resultIntsValues);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void collectsIntsToLists_sizeOrDelay() {
+        PublishSubject<Integer> intSubject = PublishSubject.create();
+
+        TestObserver<List<Integer>> testObservable = mRxTransformingTraining
+                .collectsIntsToLists(3, 100, intSubject)
+                .test();
+
+        intSubject.onNext(1);
+        intSubject.onNext(2);
+        mTestScheduler.advanceTimeBy(99, TimeUnit.MILLISECONDS);
+        testObservable.assertNoValues();
+        mTestScheduler.advanceTimeBy(1, TimeUnit.MILLISECONDS);
+        testObservable.assertValue(asList(1, 2));
+
+        mTestScheduler.advanceTimeBy(500, TimeUnit.MILLISECONDS);
+        testObservable.assertValueCount(1);
+
+        intSubject.onNext(3);
+        intSubject.onNext(4);
+        intSubject.onNext(5);
+        testObservable.assertValueSequence(Arrays.<List<Integer>>asList(asList(1, 2), asList(3, 4, 5)));
+
+        intSubject.onNext(6);
+        intSubject.onComplete();
+        testObservable.assertValueSequence(
+                Arrays.<List<Integer>>asList(asList(1, 2), asList(3, 4, 5), singletonList(6)));
+        testObservable.assertComplete();
+    }
+
+    @Test
+    public void collectsIntsToAdaptiveLists_growsUnderLoad() {
+        TestObserver<Integer> testObservable = mRxTransformingTraining
+                .collectsIntsToAdaptiveLists(2, 8, 100, Observable.range(0, 40))
+                .map(new Function<List<Integer>, Integer>() {
+                    @Override
+                    public Integer apply(List<Integer> integers) {
+                        return integers.size();
+                    }
+                })
+                .test();
+
+        testObservable.assertResult(2, 3, 4, 5, 6, 7, 8, 5);
+    }
+
+    @Test
+    public void collectsIntsToAdaptiveLists_slowConsumer() {
+        TestObserver<Integer> testObservable = mRxTransformingTraining
+                .collectsIntsToAdaptiveLists(2, 8, 100, Observable.range(0, 6))
+                .map(new Function<List<Integer>, Integer>() {
+                    @Override
+                    public Integer apply(List<Integer> integers) {
+                        mTestScheduler.advanceTimeBy(200, TimeUnit.MILLISECONDS);
+                        return integers.size();
+                    }
+                })
+                .test();
+
+        testObservable.assertResult(2, 2, 2);
+    }
+
+    @Test
+    public void collectsIntsToChunks() {
+        IntChunkPool chunkPool = new IntChunkPool(3, 2);
+        final List<List<Integer>> chunks = new ArrayList<>();
+
+        TestObserver<IntChunk> testObservable = mRxTransformingTraining
+                .collectsIntsToChunks(chunkPool, Observable.range(0, 11))
+                .doOnNext(new Consumer<IntChunk>() {
+                    @Override
+                    public void accept(IntChunk chunk) {
+                        List<Integer> values = new ArrayList<>();
+                        for (int i = 0; i < chunk.size(); i++) {
+                            values.add(chunk.get(i));
+                        }
+                        chunks.add(values);
+                        chunk.release();
+                    }
+                })
+                .test();
+
+        testObservable.assertComplete();
+        testObservable.assertNoErrors();
+        assertEquals(asList(
+                asList(0, 1, 2),
+                asList(3, 4, 5),
+                asList(6, 7, 8),
+                asList(9, 10)), chunks);
+        assertEquals(1, chunkPool.allocated());
+        assertEquals(0, chunkPool.outstanding());
+    }
+
+    @Test
+    public void collectsIntsToChunks_leakedChunks() {
+        IntChunkPool chunkPool = new IntChunkPool(2, 2);
+
+        mRxTransformingTraining
+                .collectsIntsToChunks(chunkPool, Observable.range(0, 10))
+                .test()
+                .assertValueCount(5);
+
+        assertEquals(5, chunkPool.allocated());
+        assertEquals(5, chunkPool.outstanding());
+        assertEquals(0, chunkPool.available());
+    }
+
+    @Test
+    public void collectsIntsToChunks_staleReleaseRejected() {
+        IntChunkPool chunkPool = new IntChunkPool(2, 2);
+        IntChunk first = chunkPool.acquire();
+        first.release();
+        IntChunkWriter writer = new IntChunkWriter(chunkPool);
+        writer.write(1);
+        IntChunk second = writer.flush();
+
+        try {
+            first.release();
+            fail("Stale release must be rejected");
+        } catch (IllegalStateException expected) {
+            // Блок уже был возвращён
+        }
+        assertEquals(1, chunkPool.allocated());
+        assertEquals(1, chunkPool.outstanding());
+        assertEquals(0, chunkPool.available());
+        assertEquals(1, second.get(0));
+    }
+
+    @Test
+    public void collectsIntsToChunks_disposeReleasesCurrentChunk() {
+        IntChunkPool chunkPool = new IntChunkPool(4, 2);
+        PublishSubject<Integer> subject = PublishSubject.create();
+
+        TestObserver<IntChunk> testObserver = mRxTransformingTraining
+                .collectsIntsToChunks(chunkPool, subject)
+                .test();
+        subject.onNext(1);
+        subject.onNext(2);
+        assertEquals(1, chunkPool.outstanding());
+
+        testObserver.dispose();
+
+        testObserver.assertNoValues();
+        assertEquals(0, chunkPool.outstanding());
+        assertEquals(1, chunkPool.available());
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.rxtraining.rx;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+
+import com.example.rxtraining.entity.Entity;
+
+import org.mockito.stubbing.Answer;
+
+import io.reactivex.Observable;
+
+/**
+ * Доступ тестов к {@link RxTransformingTraining#requestApiEntity(int)}, который виден только
+ * внутри пакета
+ */
+public final class RxTransformingTrainingAccess {
+
+    private RxTransformingTrainingAccess() {
+    }
+
+    public static Observable<Entity> requestApiEntity(RxTransformingTraining training, int id) {
+        return training.requestApiEntity(id);
+    }
+
+    /**
+     * @param spy    шпион Mockito
+     * @param answer ответ на запрос любой сущности
+     */
+    public static void stubRequestApiEntity(RxTransformingTraining spy, Answer<Observable<Entity>> answer) {
+        doAnswer(answer).when(spy).requestApiEntity(anyInt());
+    }
+
+    /**
+     * @param spy      шпион Mockito
+     * @param id       идентификатор сущности
+     * @param response ответ на запрос сущности {@code id}
+     */
+    public static void stubRequestApiEntity(RxTransformingTraining spy, int id, Observable<Entity> response) {
+        doReturn(response).when(spy).requestApiEntity(id);
+    }
+}